@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads an asset archive created by {@link AssetPacker}. The archive file is memory-mapped once. Entries are served as
+ * slices of the mapped buffer, so reading a resource neither opens a file nor copies its contents.
+ * <p>
+ * An archive starts with a header consisting of the magic number, the number of entries and an index. Each index
+ * record contains the length of the UTF-8 encoded entry name, the name, the offset of the entry data from the start of
+ * the file, and the length of the entry data. All numbers are big-endian 32 bit integers.
+ */
+class AssetArchive {
+
+    static final int MAGIC = 0x4a504b31;
+    private final Map<String, ByteBuffer> entries;
+
+    private AssetArchive(final Map<String, ByteBuffer> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the data of an entry. The returned buffer shares its content with the mapped archive, but has its own
+     * position and limit. Returns <code>null</code> if the archive has no entry with the specified name.
+     */
+    ByteBuffer find(final String name) {
+        final ByteBuffer result = entries.get(name);
+        if (result == null) {
+            return null;
+        }
+        else {
+            return result.duplicate();
+        }
+    }
+
+    static AssetArchive open(final String path) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(new File(path), "r");
+        final ByteBuffer buffer;
+        try {
+            // The mapping stays valid after the channel has been closed.
+            final FileChannel channel = file.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally {
+            file.close();
+        }
+
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Invalid asset archive '" + path + "'.");
+        }
+
+        final int count = buffer.getInt();
+        final Map<String, ByteBuffer> entries = new HashMap<String, ByteBuffer>();
+        for (int i = 0; i < count; ++i) {
+            final int nameLength = readInt(buffer, path);
+            if (nameLength < 0 || nameLength > buffer.remaining()) {
+                throw new IOException("Invalid entry in asset archive '" + path + "'.");
+            }
+
+            final byte[] name = new byte[nameLength];
+            buffer.get(name);
+            final int offset = readInt(buffer, path);
+            final int length = readInt(buffer, path);
+            if (offset < 0 || length < 0 || offset > buffer.capacity() - length) {
+                throw new IOException("Invalid entry in asset archive '" + path + "'.");
+            }
+
+            final ByteBuffer entry = buffer.duplicate();
+            entry.limit(offset + length);
+            entry.position(offset);
+            entries.put(new String(name, "UTF-8"), entry.slice());
+        }
+
+        return new AssetArchive(entries);
+    }
+
+    private static int readInt(final ByteBuffer buffer, final String path) throws IOException {
+        if (buffer.remaining() < 4) {
+            throw new IOException("Truncated asset archive '" + path + "'.");
+        }
+
+        return buffer.getInt();
+    }
+}
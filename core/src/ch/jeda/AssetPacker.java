@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bundles resource files into a single asset archive. Loading many small resource files from a jar or a slow disk is
+ * expensive. If the property <tt>jeda.asset.archive</tt> contains the path of an archive, resources with a path
+ * starting with 'res:' are looked up in the archive before they are searched on the class path.
+ * <p>
+ * The archive is created at build time, for example with
+ * <pre><code>java -cp jeda.jar ch.jeda.AssetPacker src assets.jpk</code></pre>
+ * Entries are named by their path relative to the packed directory, using '/' as separator. Java source and class
+ * files are skipped. A resource 'res:drawable/ship.png' is found in the archive under the name 'res/drawable/ship.png'
+ * or 'drawable/ship.png', just like on the class path.
+ *
+ * @since 2.7
+ */
+public final class AssetPacker {
+
+    private AssetPacker() {
+    }
+
+    /**
+     * Packs a directory from the command line. Expects the directory and the archive file as arguments.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the archive cannot be written
+     *
+     * @since 2.7
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java ch.jeda.AssetPacker <directory> <archive>");
+            System.exit(1);
+        }
+
+        pack(new File(args[0]), new File(args[1]));
+    }
+
+    /**
+     * Packs all resource files in a directory and its subdirectories into an asset archive. An existing archive file is
+     * overwritten.
+     *
+     * @param directory the directory to pack
+     * @param archive the archive file to write
+     * @throws IOException if a file cannot be read or the archive cannot be written
+     * @throws NullPointerException if <tt>directory</tt> or <tt>archive</tt> is <tt>null</tt>
+     * @throws IllegalArgumentException if <tt>directory</tt> is not a directory
+     *
+     * @since 2.7
+     */
+    public static void pack(final File directory, final File archive) throws IOException {
+        if (directory == null) {
+            throw new NullPointerException("directory");
+        }
+
+        if (archive == null) {
+            throw new NullPointerException("archive");
+        }
+
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("directory");
+        }
+
+        final List<String> names = new ArrayList<String>();
+        final List<File> files = new ArrayList<File>();
+        collectFiles(directory, "", names, files);
+        final byte[][] encodedNames = new byte[names.size()][];
+        // Magic number and entry count
+        long offset = 8;
+        for (int i = 0; i < names.size(); ++i) {
+            encodedNames[i] = names.get(i).getBytes("UTF-8");
+            // Name length, name, offset, and length
+            offset = offset + 12 + encodedNames[i].length;
+        }
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archive)));
+        try {
+            out.writeInt(AssetArchive.MAGIC);
+            out.writeInt(files.size());
+            final long[] lengths = new long[files.size()];
+            for (int i = 0; i < files.size(); ++i) {
+                final long length = files.get(i).length();
+                if (offset + length > Integer.MAX_VALUE) {
+                    throw new IOException("Asset archive '" + archive + "' exceeds 2 GB.");
+                }
+
+                out.writeInt(encodedNames[i].length);
+                out.write(encodedNames[i]);
+                out.writeInt((int) offset);
+                out.writeInt((int) length);
+                lengths[i] = length;
+                offset = offset + length;
+            }
+
+            final byte[] buffer = new byte[8192];
+            for (int i = 0; i < files.size(); ++i) {
+                // The index has already been written, so a file that changed in the meantime would corrupt the
+                // offsets of all following entries.
+                if (copy(files.get(i), out, buffer) != lengths[i]) {
+                    throw new IOException("File '" + files.get(i) + "' changed while packing.");
+                }
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private static void collectFiles(final File directory, final String prefix, final List<String> names,
+                                     final List<File> files) {
+        final File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+
+        // Sort the entries, so that packing the same directory always yields the same archive.
+        Arrays.sort(children);
+        for (final File child : children) {
+            final String name = prefix + child.getName();
+            if (child.isDirectory()) {
+                collectFiles(child, name + '/', names, files);
+            }
+            else if (!name.endsWith(".class") && !name.endsWith(".java")) {
+                names.add(name);
+                files.add(child);
+            }
+        }
+    }
+
+    private static long copy(final File file, final DataOutputStream out, final byte[] buffer) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            long result = 0;
+            int count = in.read(buffer);
+            while (count != -1) {
+                out.write(buffer, 0, count);
+                result = result + count;
+                count = in.read(buffer);
+            }
+
+            return result;
+        }
+        finally {
+            in.close();
+        }
+    }
+}
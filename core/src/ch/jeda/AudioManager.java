@@ -38,6 +38,10 @@ final class AudioManager implements AudioManagerImp.Callback {
         }
     }
 
+    int getVoiceCount() {
+        return imp.getVoiceCount();
+    }
+
     boolean isSoundAvailable(final Sound sound) {
         return imp.isSoundAvailable(sound.getPath());
     }
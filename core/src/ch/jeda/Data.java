@@ -17,33 +17,30 @@
 package ch.jeda;
 
 import ch.jeda.event.Key;
-import java.io.FileWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
@@ -53,7 +50,7 @@ import org.xml.sax.SAXException;
  * a network.
  *
  * @since 1.2
- * @version 3
+ * @version 4
  */
 public class Data {
 
@@ -67,9 +64,11 @@ public class Data {
     private static final char NEXT_LINE = 0x0085;
     private static final char LINE_SEPARATOR = 0x2028;
     private static final char PARAGRAPH_SEPARATOR = 0x2029;
+    private static final String INDENT = "    ";
+    private static final String LINE_BREAK = "\n";
+    private static ExecutorService saveExecutor;
 
-    private Document document;
-    private Element element;
+    private final Map<String, DataEntry> entries;
 
     /**
      * Constructs an empty data object.
@@ -77,17 +76,7 @@ public class Data {
      * @since 1.2
      */
     public Data() {
-        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
-        try {
-            builder = dbf.newDocumentBuilder();
-            document = builder.newDocument();
-            element = document.createElement("data");
-            document.appendChild(element);
-        }
-        catch (final ParserConfigurationException ex) {
-            throw new RuntimeException(ex);
-        }
+        entries = new LinkedHashMap<String, DataEntry>();
     }
 
     /**
@@ -105,20 +94,29 @@ public class Data {
             throw new NullPointerException("string");
         }
 
-        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
+        entries = new LinkedHashMap<String, DataEntry>();
+        final DataContentHandler handler = new DataContentHandler();
         try {
-            builder = dbf.newDocumentBuilder();
+            final SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
             if (string.startsWith("<data>")) {
-                document = builder.parse(new InputSource(new StringReader(string)));
+                parser.parse(new InputSource(new StringReader(string)), handler);
             }
             else {
-                document = builder.parse(JedaInternal.openInputStream(string));
+                final InputStream in = JedaInternal.openInputStream(string);
+                if (in != null) {
+                    try {
+                        parser.parse(new InputSource(new BufferedInputStream(in)), handler);
+                    }
+                    finally {
+                        in.close();
+                    }
+                }
             }
 
-            element = document.getDocumentElement();
+            if (handler.getResult() != null) {
+                entries.putAll(handler.getResult());
+            }
         }
-
         catch (final SAXException ex) {
             Log.e(ex, "Error while reading XML data in '", string, "'.");
         }
@@ -130,9 +128,8 @@ public class Data {
         }
     }
 
-    private Data(final Document document, final Element element) {
-        this.document = document;
-        this.element = element;
+    Data(final Map<String, DataEntry> entries) {
+        this.entries = entries;
     }
 
     /**
@@ -141,7 +138,7 @@ public class Data {
      * @since 1.2
      */
     public void clear() {
-        remove("*");
+        entries.clear();
     }
 
     /**
@@ -152,14 +149,7 @@ public class Data {
      * @since 1.2
      */
     public String[] getNames() {
-        final SortedSet<String> names = new TreeSet<String>();
-        final Node child = this.element.getFirstChild();
-        while (child != null) {
-            if (child.getNodeType() == Node.ELEMENT_NODE) {
-                names.add(child.getLocalName());
-            }
-        }
-
+        final SortedSet<String> names = new TreeSet<String>(entries.keySet());
         return names.toArray(new String[names.size()]);
     }
 
@@ -172,7 +162,7 @@ public class Data {
      * @since 1.2
      */
     public boolean hasValue(final String name) {
-        return element.getElementsByTagName(name).getLength() > 0;
+        return entries.containsKey(name);
     }
 
     /**
@@ -183,14 +173,7 @@ public class Data {
      * @since 1.2
      */
     public boolean isEmpty() {
-        final Node child = this.element.getFirstChild();
-        while (child != null) {
-            if (child.getNodeType() == Node.ELEMENT_NODE) {
-                return false;
-            }
-        }
-
-        return true;
+        return entries.isEmpty();
     }
 
     /**
@@ -217,12 +200,12 @@ public class Data {
      * @since 1.2
      */
     public final boolean readBoolean(final String name, final boolean defaultValue) {
-        final Node child = getFirstElementByTagName(name);
-        if (child == null) {
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
             return defaultValue;
         }
         else {
-            return Convert.toBoolean(child.getTextContent(), defaultValue);
+            return entry.getBoolean(0, defaultValue);
         }
     }
 
@@ -250,10 +233,14 @@ public class Data {
      * @since 1.2
      */
     public boolean[] readBooleans(final String name, final boolean defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final boolean[] result = new boolean[nodes.getLength()];
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
+            return new boolean[0];
+        }
+
+        final boolean[] result = new boolean[entry.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toBoolean(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = entry.getBoolean(i, defaultValue);
         }
 
         return result;
@@ -283,12 +270,12 @@ public class Data {
      * @since 1.2
      */
     public final double readDouble(final String name, final double defaultValue) {
-        final Node child = getFirstElementByTagName(name);
-        if (child == null) {
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
             return defaultValue;
         }
         else {
-            return Convert.toDouble(child.getTextContent(), defaultValue);
+            return entry.getDouble(0, defaultValue);
         }
     }
 
@@ -316,10 +303,14 @@ public class Data {
      * @since 1.2
      */
     public double[] readDoubles(final String name, final double defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final double[] result = new double[nodes.getLength()];
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
+            return new double[0];
+        }
+
+        final double[] result = new double[entry.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toDouble(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = entry.getDouble(i, defaultValue);
         }
 
         return result;
@@ -349,12 +340,12 @@ public class Data {
      * @since 2.0
      */
     public final float readFloat(final String name, final float defaultValue) {
-        final Node child = getFirstElementByTagName(name);
-        if (child == null) {
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
             return defaultValue;
         }
         else {
-            return Convert.toFloat(child.getTextContent(), defaultValue);
+            return entry.getFloat(0, defaultValue);
         }
     }
 
@@ -382,10 +373,14 @@ public class Data {
      * @since 2.0
      */
     public float[] readFloats(final String name, final float defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final float[] result = new float[nodes.getLength()];
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
+            return new float[0];
+        }
+
+        final float[] result = new float[entry.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toFloat(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = entry.getFloat(i, defaultValue);
         }
 
         return result;
@@ -415,12 +410,12 @@ public class Data {
      * @since 1.2
      */
     public final int readInt(final String name, final int defaultValue) {
-        final Node child = getFirstElementByTagName(name);
-        if (child == null) {
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
             return defaultValue;
         }
         else {
-            return Convert.toInt(child.getTextContent(), defaultValue);
+            return entry.getInt(0, defaultValue);
         }
     }
 
@@ -448,10 +443,14 @@ public class Data {
      * @since 1.2
      */
     public int[] readInts(final String name, final int defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final int[] result = new int[nodes.getLength()];
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
+            return new int[0];
+        }
+
+        final int[] result = new int[entry.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toInt(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = entry.getInt(i, defaultValue);
         }
 
         return result;
@@ -482,16 +481,12 @@ public class Data {
      * @since 1.2
      */
     public Key readKey(final String name, final Key defaultValue) {
-        final Node child = getFirstElementByTagName(name);
-        if (child == null) {
+        final DataEntry entry = entries.get(name);
+        if (entry == null) {
             return defaultValue;
         }
-
-        try {
-            return Key.valueOf(child.getTextContent());
-        }
-        catch (final IllegalArgumentException ex) {
-            return defaultValue;
+        else {
+            return toKey(entry.getText(0), defaultValue);
         }
     }
 
@@ -519,15 +514,14 @@ public class Data {
      * @since 1.2
      */
     public Key[] readKeys(final String name, final Key defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final Key[] result = new Key[nodes.getLength()];
+        final DataEntry entry = entries.get(name);
+        if (entry == null) {
+            return new Key[0];
+        }
+
+        final Key[] result = new Key[entry.size()];
         for (int i = 0; i < result.length; ++i) {
-            try {
-                result[i] = Key.valueOf(nodes.item(i).getTextContent());
-            }
-            catch (final IllegalArgumentException ex) {
-                result[i] = defaultValue;
-            }
+            result[i] = toKey(entry.getText(i), defaultValue);
         }
 
         return result;
@@ -557,12 +551,12 @@ public class Data {
      * @since 2.4
      */
     public final long readLong(final String name, final long defaultValue) {
-        final Node child = getFirstElementByTagName(name);
-        if (child == null) {
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
             return defaultValue;
         }
         else {
-            return Convert.toLong(child.getTextContent(), defaultValue);
+            return entry.getLong(0, defaultValue);
         }
     }
 
@@ -590,10 +584,14 @@ public class Data {
      * @since 2.4
      */
     public long[] readLongs(final String name, final long defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final long[] result = new long[nodes.getLength()];
+        final DataEntry entry = getTypedEntry(name);
+        if (entry == null) {
+            return new long[0];
+        }
+
+        final long[] result = new long[entry.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toLong(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = entry.getLong(i, defaultValue);
         }
 
         return result;
@@ -625,7 +623,13 @@ public class Data {
      * @since 1.2
      */
     public <T extends Storable> T readObject(final String name, final T defaultValue) {
-        return doReadObject((Element) getFirstElementByTagName(name), defaultValue);
+        final DataEntry entry = entries.get(name);
+        if (entry == null) {
+            return defaultValue;
+        }
+        else {
+            return doReadObject(entry.getClassName(0), entry.getObject(0), defaultValue);
+        }
     }
 
     /**
@@ -640,10 +644,12 @@ public class Data {
      */
     public final <T extends Storable> List<T> readObjectList(final String name) {
         final List<T> result = new ArrayList<T>();
-        final NodeList nodes = element.getElementsByTagName(name);
-        for (int i = 0; i < nodes.getLength(); ++i) {
-            final T object = doReadObject((Element) nodes.item(i), null);
-            result.add(object);
+        final DataEntry entry = entries.get(name);
+        if (entry != null) {
+            for (int i = 0; i < entry.size(); ++i) {
+                final T object = doReadObject(entry.getClassName(i), entry.getObject(i), null);
+                result.add(object);
+            }
         }
 
         return result;
@@ -673,16 +679,13 @@ public class Data {
      * @since 1.2
      */
     public String readString(final String name, final String defaultValue) {
-        final Element child = (Element) getFirstElementByTagName(name);
-        if (child == null) {
+        final DataEntry entry = entries.get(name);
+        if (entry == null) {
             return defaultValue;
         }
-
-        if ("true".equals(child.getAttribute("null"))) {
-            return null;
+        else {
+            return entry.getText(0);
         }
-
-        return unescape(child.getTextContent());
     }
 
     /**
@@ -709,21 +712,55 @@ public class Data {
      * @since 1.2
      */
     public String[] readStrings(final String name, final String defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final String[] result = new String[nodes.getLength()];
+        final DataEntry entry = entries.get(name);
+        if (entry == null) {
+            return new String[0];
+        }
+
+        final String[] result = new String[entry.size()];
         for (int i = 0; i < result.length; ++i) {
-            Element node = (Element) nodes.item(i);
-            if ("true".equals(node.getAttribute("null"))) {
-                result[i] = null;
-            }
-            else {
-                result[i] = unescape(node.getTextContent());
-            }
+            result[i] = entry.getText(i);
         }
 
         return result;
     }
 
+    /**
+     * Registers a short type tag for a class. When an object of the class is written to a data object, the tag is
+     * stored instead of the fully qualified class name. When data is read, the tag is resolved to the class again.
+     * Programs should register their tags before reading or writing data. Registering the same tag for the same class
+     * again has no effect.
+     *
+     * @param tag the type tag
+     * @param type the class to register
+     * @throws NullPointerException if <code>tag</code> or <code>type</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>tag</code> is empty or already used for another class, if
+     * <code>type</code> has already been registered with another tag, or if <code>type</code> does not have a public
+     * constructor with a {@link ch.jeda.Data} parameter
+     *
+     * @since 2.7
+     */
+    public static void registerType(final String tag, final Class<? extends Storable> type) {
+        if (tag == null) {
+            throw new NullPointerException("tag");
+        }
+
+        if (type == null) {
+            throw new NullPointerException("type");
+        }
+
+        if (tag.isEmpty()) {
+            throw new IllegalArgumentException("tag");
+        }
+
+        try {
+            StorableFactory.register(tag, type);
+        }
+        catch (final NoSuchMethodException ex) {
+            throw new IllegalArgumentException("type", ex);
+        }
+    }
+
     /**
      * Removes a value associated with the specified name from the data object.
      *
@@ -732,15 +769,7 @@ public class Data {
      * @since 1.2
      */
     public void remove(final String name) {
-        final NodeList nodeList = element.getElementsByTagName(name);
-        final Node[] nodes = new Node[nodeList.getLength()];
-        for (int i = 0; i < nodes.length; ++i) {
-            nodes[i] = nodeList.item(i);
-        }
-
-        for (int i = 0; i < nodes.length; ++i) {
-            element.removeChild(nodes[i]);
-        }
+        entries.remove(name);
     }
 
     /**
@@ -751,9 +780,9 @@ public class Data {
      * @since 2.0
      */
     public void save(final String path) {
-        FileWriter writer = null;
+        Writer writer = null;
         try {
-            writer = new FileWriter(path);
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), "UTF-8"));
             serialize(writer, true);
         }
         catch (final IOException ex) {
@@ -771,6 +800,39 @@ public class Data {
         }
     }
 
+    /**
+     * Saves the values of this data object to a XML file in the background. The current values are captured when the
+     * method is called. Changes made to the data object afterwards do not affect the saved file. The file is written by
+     * a worker thread, so the calling thread does not have to wait until the file has been written. Files are written
+     * in the order in which this method has been called.
+     *
+     * @param path the path of the file
+     * @return a future that is done when the file has been written
+     * @throws NullPointerException if <code>path</code> is <code>null</code>
+     *
+     * @since 2.7
+     */
+    public Future<?> saveInBackground(final String path) {
+        if (path == null) {
+            throw new NullPointerException("path");
+        }
+
+        final Data snapshot = snapshot();
+        return getSaveExecutor().submit(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    snapshot.save(path);
+                }
+                catch (final RuntimeException ex) {
+                    Log.e(ex, "Error while writing to file '", path, "'.");
+                    throw ex;
+                }
+            }
+        });
+    }
+
     /**
      * Serializes the data to a line of text.
      *
@@ -780,7 +842,13 @@ public class Data {
      */
     public String toLine() {
         final StringWriter writer = new StringWriter();
-        serialize(writer, false);
+        try {
+            serialize(writer, false);
+        }
+        catch (final IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
         return writer.toString();
     }
 
@@ -801,12 +869,8 @@ public class Data {
      * @since 1.2
      */
     public void writeBoolean(final String name, final boolean value) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
-        remove(name);
-        addElement(name, Convert.toString(value));
+        checkName(name);
+        put(name, new DataEntry.BooleanEntry(new boolean[]{value}));
     }
 
     /**
@@ -821,18 +885,12 @@ public class Data {
      * @since 1.2
      */
     public void writeBooleans(final String name, final boolean[] values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
-        for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
-        }
+        put(name, new DataEntry.BooleanEntry(values.clone()));
     }
 
     /**
@@ -847,12 +905,8 @@ public class Data {
      * @since 1.2
      */
     public void writeDouble(final String name, final double value) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
-        remove(name);
-        addElement(name, Convert.toString(value));
+        checkName(name);
+        put(name, new DataEntry.DoubleEntry(new double[]{value}));
     }
 
     /**
@@ -867,18 +921,12 @@ public class Data {
      * @since 1.2
      */
     public void writeDoubles(final String name, final double[] values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
-        for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
-        }
+        put(name, new DataEntry.DoubleEntry(values.clone()));
     }
 
     /**
@@ -893,12 +941,8 @@ public class Data {
      * @since 1.2
      */
     public void writeFloat(final String name, final float value) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
-        remove(name);
-        addElement(name, String.valueOf(value));
+        checkName(name);
+        put(name, new DataEntry.FloatEntry(new float[]{value}));
     }
 
     /**
@@ -913,18 +957,12 @@ public class Data {
      * @since 1.2
      */
     public void writeFloats(final String name, final float[] values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
-        for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
-        }
+        put(name, new DataEntry.FloatEntry(values.clone()));
     }
 
     /**
@@ -939,12 +977,8 @@ public class Data {
      * @since 1.2
      */
     public void writeInt(final String name, final int value) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
-        remove(name);
-        addElement(name, Convert.toString(value));
+        checkName(name);
+        put(name, new DataEntry.IntEntry(new int[]{value}));
     }
 
     /**
@@ -959,18 +993,12 @@ public class Data {
      * @since 1.2
      */
     public void writeInts(final String name, final int[] values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
-        for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
-        }
+        put(name, new DataEntry.IntEntry(values.clone()));
     }
 
     /**
@@ -986,12 +1014,8 @@ public class Data {
      * @since 1.2
      */
     public void writeKey(final String name, final Key value) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
-        remove(name);
-        addElement(name, value.toString());
+        checkName(name);
+        put(name, new DataEntry.TextEntry(new String[]{value.toString()}));
     }
 
     /**
@@ -1006,18 +1030,17 @@ public class Data {
      * @since 1.2
      */
     public void writeKeys(final String name, final Key[] values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
+        final String[] texts = new String[values.length];
         for (int i = 0; i < values.length; ++i) {
-            addElement(name, values[i].toString());
+            texts[i] = values[i].toString();
         }
+
+        put(name, new DataEntry.TextEntry(texts));
     }
 
     /**
@@ -1032,12 +1055,8 @@ public class Data {
      * @since 2.4
      */
     public void writeLong(final String name, final long value) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
-        remove(name);
-        addElement(name, Convert.toString(value));
+        checkName(name);
+        put(name, new DataEntry.LongEntry(new long[]{value}));
     }
 
     /**
@@ -1052,18 +1071,12 @@ public class Data {
      * @since 1.2
      */
     public void writeLongs(final String name, final long[] values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
-        for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
-        }
+        put(name, new DataEntry.LongEntry(values.clone()));
     }
 
     /**
@@ -1077,12 +1090,13 @@ public class Data {
      * @since 1.2
      */
     public void writeObject(final String name, final Storable value) {
-        if (name == null) {
-            throw new NullPointerException("name");
+        checkName(name);
+        if (value == null) {
+            entries.remove(name);
+        }
+        else {
+            put(name, createObjectEntry(new Storable[]{value}, 1));
         }
-
-        remove(name);
-        doWriteObject(name, value);
     }
 
     /**
@@ -1097,18 +1111,12 @@ public class Data {
      * @since 1.2
      */
     public <T extends Storable> void writeObjects(final String name, final T[] values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
-        for (int i = 0; i < values.length; ++i) {
-            doWriteObject(name, values[i]);
-        }
+        put(name, createObjectEntry(values, values.length));
     }
 
     /**
@@ -1123,18 +1131,12 @@ public class Data {
      * @since 2.4
      */
     public <T extends Storable> void writeObjectList(final String name, final List<T> values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
-        for (int i = 0; i < values.size(); ++i) {
-            doWriteObject(name, values.get(i));
-        }
+        put(name, createObjectEntry(values.toArray(new Storable[values.size()]), values.size()));
     }
 
     /**
@@ -1149,12 +1151,8 @@ public class Data {
      * @since 1.2
      */
     public void writeString(final String name, final String value) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
-        remove(name);
-        addElement(name, escape(value));
+        checkName(name);
+        put(name, new DataEntry.TextEntry(new String[]{value}));
     }
 
     /**
@@ -1169,55 +1167,57 @@ public class Data {
      * @since 1.2
      */
     public void writeStrings(final String name, final String[] values) {
-        if (name == null) {
-            throw new NullPointerException("name");
-        }
-
+        checkName(name);
         if (values == null) {
             throw new NullPointerException("values");
         }
 
-        remove(name);
-        for (int i = 0; i < values.length; ++i) {
-            addElement(name, escape(values[i]));
-        }
+        put(name, new DataEntry.TextEntry(values.clone()));
     }
 
-    private Node getFirstElementByTagName(final String name) {
-        NodeList nodes = element.getElementsByTagName(name);
-        if (nodes.getLength() > 0) {
-            return nodes.item(0);
+    private void checkName(final String name) {
+        if (name == null) {
+            throw new NullPointerException("name");
         }
-        else {
-            return null;
+
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("name");
         }
     }
 
-    private void addElement(final String name, final String content) {
-        try {
-            final Element newElement = document.createElement(name);
-            if (content == null) {
-                newElement.setAttribute("null", "true");
-            }
-            else {
-                newElement.setTextContent(content);
-            }
+    /**
+     * Returns the entry associated with the specified name. Text parsed from XML is replaced by a primitive array on the
+     * first numeric or boolean read, so that it is neither kept as strings nor parsed again on every read.
+     */
+    private DataEntry getTypedEntry(final String name) {
+        final DataEntry entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
 
-            element.appendChild(newElement);
+        final DataEntry result = entry.toTyped();
+        if (result != entry) {
+            entries.put(name, result);
         }
-        catch (final DOMException ex) {
-            throw new IllegalArgumentException("name", ex);
+
+        return result;
+    }
+
+    private void put(final String name, final DataEntry entry) {
+        entries.remove(name);
+        if (entry.size() > 0) {
+            entries.put(name, entry);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private <T extends Storable> T doReadObject(final Element element, final T defaultValue) {
-        final String className = element.getAttribute("class");
+    private <T extends Storable> T doReadObject(final String className, final Data data, final T defaultValue) {
+        if (data == null || className == null) {
+            return defaultValue;
+        }
+
         try {
-            final Class clazz = Class.forName(className);
-            final Constructor ctor = clazz.getConstructor(Data.class);
-            ctor.setAccessible(true);
-            return (T) ctor.newInstance(new Data(document, element));
+            return (T) StorableFactory.forName(className).create(data);
         }
         catch (final NoSuchMethodException ex) {
             Log.e(ex, "Error while reading serialized data: Class '", className, "' does not have a matching constructor.");
@@ -1241,39 +1241,200 @@ public class Data {
         return defaultValue;
     }
 
-    private void doWriteObject(final String name, final Storable value) {
-        if (value != null) {
-            try {
-                final Element newElement = document.createElement(name);
-                newElement.setAttribute("class", value.getClass().getName());
-                element.appendChild(newElement);
-                value.writeTo(new Data(document, newElement));
+    /**
+     * Creates a copy of this data object that can be written by another thread. The value arrays of the entries are
+     * never modified after they have been created, so only the maps have to be copied.
+     */
+    private Data snapshot() {
+        final Map<String, DataEntry> copy = new LinkedHashMap<String, DataEntry>();
+        for (final Map.Entry<String, DataEntry> item : entries.entrySet()) {
+            final DataEntry entry = item.getValue();
+            if (entry instanceof DataEntry.ObjectEntry) {
+                final String[] classNames = new String[entry.size()];
+                final Data[] objects = new Data[entry.size()];
+                for (int i = 0; i < objects.length; ++i) {
+                    classNames[i] = entry.getClassName(i);
+                    objects[i] = entry.getObject(i).snapshot();
+                }
+
+                copy.put(item.getKey(), new DataEntry.ObjectEntry(classNames, objects));
             }
-            catch (final DOMException ex) {
-                throw new IllegalArgumentException("name", ex);
+            else {
+                copy.put(item.getKey(), entry);
             }
         }
+
+        return new Data(copy);
     }
 
-    private void serialize(final Writer writer, final boolean multiline) {
-        try {
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            if (multiline) {
-                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-                transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+    private void serialize(final Writer writer, final boolean multiline) throws IOException {
+        if (multiline) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+            writer.write(LINE_BREAK);
+        }
+
+        writer.write("<data>");
+        serializeEntries(writer, multiline, 1);
+        writer.write("</data>");
+        if (multiline) {
+            writer.write(LINE_BREAK);
+        }
+    }
+
+    private void serializeEntries(final Writer writer, final boolean multiline, final int depth) throws IOException {
+        if (multiline && !entries.isEmpty()) {
+            writer.write(LINE_BREAK);
+        }
+
+        for (final Map.Entry<String, DataEntry> item : entries.entrySet()) {
+            final String name = item.getKey();
+            final DataEntry entry = item.getValue();
+            for (int i = 0; i < entry.size(); ++i) {
+                if (multiline) {
+                    writeIndent(writer, depth);
+                }
+
+                final Data object = entry.getObject(i);
+                if (object != null) {
+                    writer.write('<');
+                    writer.write(name);
+                    writer.write(" class=\"");
+                    writeXmlText(writer, entry.getClassName(i));
+                    if (object.isEmpty()) {
+                        writer.write("\"/>");
+                    }
+                    else {
+                        writer.write("\">");
+                        object.serializeEntries(writer, multiline, depth + 1);
+                        if (multiline) {
+                            writeIndent(writer, depth);
+                        }
+
+                        writer.write("</");
+                        writer.write(name);
+                        writer.write('>');
+                    }
+                }
+                else {
+                    final String text = entry.getText(i);
+                    writer.write('<');
+                    writer.write(name);
+                    if (text == null) {
+                        writer.write(" null=\"true\"/>");
+                    }
+                    else if (text.isEmpty()) {
+                        writer.write("/>");
+                    }
+                    else {
+                        writer.write('>');
+                        writeXmlText(writer, escape(text));
+                        writer.write("</");
+                        writer.write(name);
+                        writer.write('>');
+                    }
+                }
+
+                if (multiline) {
+                    writer.write(LINE_BREAK);
+                }
             }
-            else {
-                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-                transformer.setOutputProperty(OutputKeys.INDENT, "no");
+        }
+    }
+
+    private static DataEntry createObjectEntry(final Storable[] values, final int count) {
+        int size = 0;
+        for (int i = 0; i < count; ++i) {
+            if (values[i] != null) {
+                ++size;
             }
+        }
 
-            Result output = new StreamResult(writer);
-            Source input = new DOMSource(document);
-            transformer.transform(input, output);
+        final String[] classNames = new String[size];
+        final Data[] objects = new Data[size];
+        int j = 0;
+        for (int i = 0; i < count; ++i) {
+            if (values[i] != null) {
+                classNames[j] = StorableFactory.getTypeName(values[i].getClass());
+                objects[j] = new Data();
+                values[i].writeTo(objects[j]);
+                ++j;
+            }
         }
-        catch (TransformerException ex) {
-            throw new RuntimeException(ex);
+
+        return new DataEntry.ObjectEntry(classNames, objects);
+    }
+
+    private static synchronized ExecutorService getSaveExecutor() {
+        if (saveExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                                                                       new LinkedBlockingQueue<Runnable>());
+            // Let the save thread end when idle, so that it does not keep the application alive.
+            executor.allowCoreThreadTimeOut(true);
+            saveExecutor = executor;
+        }
+
+        return saveExecutor;
+    }
+
+    private static boolean isValidName(final String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+
+        final char first = name.charAt(0);
+        if (!Character.isLetter(first) && first != '_') {
+            return false;
+        }
+
+        for (int i = 1; i < name.length(); ++i) {
+            final char ch = name.charAt(i);
+            if (!Character.isLetterOrDigit(ch) && ch != '_' && ch != '-' && ch != '.') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Key toKey(final String text, final Key defaultValue) {
+        if (text == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Key.valueOf(text);
+        }
+        catch (final IllegalArgumentException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static void writeIndent(final Writer writer, final int depth) throws IOException {
+        for (int i = 0; i < depth; ++i) {
+            writer.write(INDENT);
+        }
+    }
+
+    private static void writeXmlText(final Writer writer, final String text) throws IOException {
+        for (int i = 0; i < text.length(); ++i) {
+            final char ch = text.charAt(i);
+            switch (ch) {
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '"':
+                    writer.write("&quot;");
+                    break;
+                default:
+                    writer.write(ch);
+                    break;
+            }
         }
     }
 
@@ -1331,7 +1492,7 @@ public class Data {
         return result.toString();
     }
 
-    private static String unescape(final String text) {
+    static String unescape(final String text) {
         final StringBuilder result = new StringBuilder();
         for (int i = 0; i < text.length(); ++i) {
             final char ch = text.charAt(i);
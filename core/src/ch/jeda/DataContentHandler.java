@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Builds the entries of a {@link ch.jeda.Data} object while its XML representation is being parsed. Values are
+ * collected element by element, so no document tree is built. Elements with a class attribute or with child elements
+ * are read as objects, all other elements as text values.
+ */
+class DataContentHandler extends DefaultHandler {
+
+    private static final String CLASS_ATTRIBUTE = "class";
+    private static final String NULL_ATTRIBUTE = "null";
+    private static final String TRUE = "true";
+    private final List<Frame> stack;
+    private Map<String, DataEntry> result;
+
+    DataContentHandler() {
+        stack = new ArrayList<Frame>();
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) {
+        if (!stack.isEmpty()) {
+            final Frame frame = stack.get(stack.size() - 1);
+            if (frame.children == null) {
+                frame.text.append(ch, start, length);
+            }
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) {
+        final Frame frame = stack.remove(stack.size() - 1);
+        if (stack.isEmpty()) {
+            result = frame.createEntries();
+        }
+        else {
+            stack.get(stack.size() - 1).addChild(frame);
+        }
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName,
+                             final Attributes attributes) {
+        if (!stack.isEmpty()) {
+            stack.get(stack.size() - 1).startChildren();
+        }
+
+        stack.add(new Frame(qName, attributes.getValue(CLASS_ATTRIBUTE),
+                            TRUE.equals(attributes.getValue(NULL_ATTRIBUTE))));
+    }
+
+    /**
+     * Returns the entries of the root element once the document has been parsed.
+     */
+    Map<String, DataEntry> getResult() {
+        return result;
+    }
+
+    private static final class Frame {
+
+        final String className;
+        final String name;
+        final boolean isNull;
+        final StringBuilder text;
+        Map<String, List<Frame>> children;
+        Map<String, DataEntry> entries;
+
+        Frame(final String name, final String className, final boolean isNull) {
+            this.className = className;
+            this.name = name;
+            this.isNull = isNull;
+            text = new StringBuilder();
+        }
+
+        void addChild(final Frame child) {
+            List<Frame> list = children.get(child.name);
+            if (list == null) {
+                list = new ArrayList<Frame>();
+                children.put(child.name, list);
+            }
+
+            // Release the nested frames as soon as the entries of the child have been built
+            if (child.isObject()) {
+                child.entries = child.createEntries();
+                child.children = null;
+            }
+
+            list.add(child);
+        }
+
+        Map<String, DataEntry> createEntries() {
+            final Map<String, DataEntry> result = new LinkedHashMap<String, DataEntry>();
+            if (children == null) {
+                return result;
+            }
+
+            for (final Map.Entry<String, List<Frame>> item : children.entrySet()) {
+                final List<Frame> frames = item.getValue();
+                if (containsObject(frames)) {
+                    final String[] classNames = new String[frames.size()];
+                    final Data[] objects = new Data[frames.size()];
+                    for (int i = 0; i < objects.length; ++i) {
+                        final Frame frame = frames.get(i);
+                        classNames[i] = frame.className;
+                        if (frame.entries == null) {
+                            objects[i] = new Data(new LinkedHashMap<String, DataEntry>());
+                        }
+                        else {
+                            objects[i] = new Data(frame.entries);
+                        }
+                    }
+
+                    result.put(item.getKey(), new DataEntry.ObjectEntry(classNames, objects));
+                }
+                else {
+                    final String[] texts = new String[frames.size()];
+                    for (int i = 0; i < texts.length; ++i) {
+                        final Frame frame = frames.get(i);
+                        if (!frame.isNull) {
+                            texts[i] = Data.unescape(frame.text.toString());
+                        }
+                    }
+
+                    result.put(item.getKey(), new DataEntry.TextEntry(texts));
+                }
+            }
+
+            return result;
+        }
+
+        boolean isObject() {
+            return className != null || children != null;
+        }
+
+        void startChildren() {
+            if (children == null) {
+                children = new LinkedHashMap<String, List<Frame>>();
+                text.setLength(0);
+            }
+        }
+
+        private static boolean containsObject(final List<Frame> frames) {
+            for (int i = 0; i < frames.size(); ++i) {
+                if (frames.get(i).isObject()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * Stores the values associated with one name of a {@link ch.jeda.Data} object. Numeric values are kept in primitive
+ * arrays. Values parsed from XML are kept as text until they are first read as a number or a boolean. Reading a value
+ * of another type than the stored one falls back to converting the textual representation of the value, which is what
+ * would have been read from the XML representation.
+ */
+abstract class DataEntry {
+
+    /**
+     * Returns the number of values stored in this entry.
+     */
+    abstract int size();
+
+    /**
+     * Returns the textual representation of a value. Returns <tt>null</tt> for a <tt>null</tt> string or for an object.
+     */
+    abstract String getText(int index);
+
+    boolean getBoolean(final int index, final boolean defaultValue) {
+        return Convert.toBoolean(getText(index), defaultValue);
+    }
+
+    String getClassName(final int index) {
+        return null;
+    }
+
+    double getDouble(final int index, final double defaultValue) {
+        final String text = getText(index);
+        if (text == null) {
+            return defaultValue;
+        }
+        else {
+            return Convert.toDouble(text, defaultValue);
+        }
+    }
+
+    float getFloat(final int index, final float defaultValue) {
+        final String text = getText(index);
+        if (text == null) {
+            return defaultValue;
+        }
+        else {
+            return Convert.toFloat(text, defaultValue);
+        }
+    }
+
+    int getInt(final int index, final int defaultValue) {
+        return Convert.toInt(getText(index), defaultValue);
+    }
+
+    long getLong(final int index, final long defaultValue) {
+        return Convert.toLong(getText(index), defaultValue);
+    }
+
+    Data getObject(final int index) {
+        return null;
+    }
+
+    /**
+     * Returns an entry that stores the same values in a primitive array, or this entry if there is none.
+     */
+    DataEntry toTyped() {
+        return this;
+    }
+
+    static final class BooleanEntry extends DataEntry {
+
+        private final boolean[] values;
+
+        BooleanEntry(final boolean[] values) {
+            this.values = values;
+        }
+
+        @Override
+        boolean getBoolean(final int index, final boolean defaultValue) {
+            return values[index];
+        }
+
+        @Override
+        String getText(final int index) {
+            return Convert.toString(values[index]);
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+    }
+
+    static final class DoubleEntry extends DataEntry {
+
+        private final double[] values;
+
+        DoubleEntry(final double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        double getDouble(final int index, final double defaultValue) {
+            return values[index];
+        }
+
+        @Override
+        String getText(final int index) {
+            return Convert.toString(values[index]);
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+    }
+
+    static final class FloatEntry extends DataEntry {
+
+        private final float[] values;
+
+        FloatEntry(final float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        float getFloat(final int index, final float defaultValue) {
+            return values[index];
+        }
+
+        @Override
+        String getText(final int index) {
+            return String.valueOf(values[index]);
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+    }
+
+    static final class IntEntry extends DataEntry {
+
+        private final int[] values;
+
+        IntEntry(final int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        double getDouble(final int index, final double defaultValue) {
+            return values[index];
+        }
+
+        @Override
+        int getInt(final int index, final int defaultValue) {
+            return values[index];
+        }
+
+        @Override
+        long getLong(final int index, final long defaultValue) {
+            return values[index];
+        }
+
+        @Override
+        String getText(final int index) {
+            return Convert.toString(values[index]);
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+    }
+
+    static final class LongEntry extends DataEntry {
+
+        private final long[] values;
+
+        LongEntry(final long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        long getLong(final int index, final long defaultValue) {
+            return values[index];
+        }
+
+        @Override
+        String getText(final int index) {
+            return Convert.toString(values[index]);
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+    }
+
+    static final class ObjectEntry extends DataEntry {
+
+        private final String[] classNames;
+        private final Data[] objects;
+
+        ObjectEntry(final String[] classNames, final Data[] objects) {
+            this.classNames = classNames;
+            this.objects = objects;
+        }
+
+        @Override
+        String getClassName(final int index) {
+            return classNames[index];
+        }
+
+        @Override
+        Data getObject(final int index) {
+            return objects[index];
+        }
+
+        @Override
+        String getText(final int index) {
+            return null;
+        }
+
+        @Override
+        int size() {
+            return objects.length;
+        }
+    }
+
+    static final class TextEntry extends DataEntry {
+
+        private final String[] values;
+        private boolean typeChecked;
+
+        TextEntry(final String[] values) {
+            this.values = values;
+        }
+
+        @Override
+        String getText(final int index) {
+            return values[index];
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+
+        /**
+         * Returns a typed entry only if every value is exactly the textual representation of its typed value, so that
+         * all reads return the same results as before. The conversion is attempted only once.
+         */
+        @Override
+        DataEntry toTyped() {
+            if (typeChecked) {
+                return this;
+            }
+
+            typeChecked = true;
+            if (containsNull()) {
+                return this;
+            }
+
+            final int[] ints = toInts();
+            if (ints != null) {
+                return new IntEntry(ints);
+            }
+
+            final long[] longs = toLongs();
+            if (longs != null) {
+                return new LongEntry(longs);
+            }
+
+            final double[] doubles = toDoubles();
+            if (doubles != null) {
+                return new DoubleEntry(doubles);
+            }
+
+            final boolean[] booleans = toBooleans();
+            if (booleans != null) {
+                return new BooleanEntry(booleans);
+            }
+
+            return this;
+        }
+
+        private boolean containsNull() {
+            for (int i = 0; i < values.length; ++i) {
+                if (values[i] == null) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean[] toBooleans() {
+            final boolean[] result = new boolean[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                result[i] = Convert.toBoolean(values[i], false);
+                if (!Convert.toString(result[i]).equals(values[i])) {
+                    return null;
+                }
+            }
+
+            return result;
+        }
+
+        private double[] toDoubles() {
+            final double[] result = new double[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                result[i] = Convert.toDouble(values[i], 0.0);
+                if (!Convert.toString(result[i]).equals(values[i])) {
+                    return null;
+                }
+            }
+
+            return result;
+        }
+
+        private int[] toInts() {
+            final int[] result = new int[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                result[i] = Convert.toInt(values[i], 0);
+                if (!Convert.toString(result[i]).equals(values[i])) {
+                    return null;
+                }
+            }
+
+            return result;
+        }
+
+        private long[] toLongs() {
+            final long[] result = new long[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                result[i] = Convert.toLong(values[i], 0l);
+                if (!Convert.toString(result[i]).equals(values[i])) {
+                    return null;
+                }
+            }
+
+            return result;
+        }
+    }
+}
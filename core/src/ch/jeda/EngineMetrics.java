@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * Provides performance metrics of the running Jeda engine. The durations of frames and of the parts of each view tick
+ * are kept in histograms. On the Java platform, the metrics are also available as the JMX MBean
+ * <tt>ch.jeda:type=EngineMetrics</tt>.
+ *
+ * @since 2.7
+ */
+public final class EngineMetrics {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final Object LOCK = new Object();
+    private static final TimeHistogram[] HISTOGRAMS = initHistograms();
+    private static int currentElementCount;
+    private static int elementCount;
+    private static long imageCacheBytes;
+    private static int imageCacheCount;
+
+    /**
+     * The measured durations.
+     *
+     * @since 2.7
+     */
+    public enum Timing {
+
+        /**
+         * The time between the start of two consecutive engine ticks.
+         *
+         * @since 2.7
+         */
+        FRAME,
+        /**
+         * The time a view spends dispatching events to its listeners.
+         *
+         * @since 2.7
+         */
+        DISPATCH,
+        /**
+         * The time a view spends stepping and drawing its elements.
+         *
+         * @since 2.7
+         */
+        DRAW,
+        /**
+         * The time a view spends displaying the drawn frame.
+         *
+         * @since 2.7
+         */
+        UPDATE
+    }
+
+    /**
+     * Returns the number of voices the audio system is currently playing. This includes sounds and music.
+     *
+     * @return the number of playing voices
+     *
+     * @since 2.7
+     */
+    public static int getAudioVoiceCount() {
+        return Jeda.getAudioManager().getVoiceCount();
+    }
+
+    /**
+     * Returns the number of durations measured for the specified timing.
+     *
+     * @param timing the timing
+     * @return the number of durations
+     * @throws NullPointerException if <tt>timing</tt> is <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public static long getCount(final Timing timing) {
+        synchronized (LOCK) {
+            return HISTOGRAMS[timing.ordinal()].getCount();
+        }
+    }
+
+    /**
+     * Returns the total number of elements of all views during the last frame.
+     *
+     * @return the number of elements
+     *
+     * @since 2.7
+     */
+    public static int getElementCount() {
+        synchronized (LOCK) {
+            return elementCount;
+        }
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the images in the image cache.
+     *
+     * @return the size of the image cache in bytes
+     *
+     * @since 2.7
+     */
+    public static long getImageCacheBytes() {
+        synchronized (LOCK) {
+            return imageCacheBytes;
+        }
+    }
+
+    /**
+     * Returns the number of images in the image cache.
+     *
+     * @return the number of cached images
+     *
+     * @since 2.7
+     */
+    public static int getImageCacheCount() {
+        synchronized (LOCK) {
+            return imageCacheCount;
+        }
+    }
+
+    /**
+     * Returns the longest duration measured for the specified timing.
+     *
+     * @param timing the timing
+     * @return the longest duration in seconds
+     * @throws NullPointerException if <tt>timing</tt> is <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public static double getMax(final Timing timing) {
+        synchronized (LOCK) {
+            return toSeconds(HISTOGRAMS[timing.ordinal()].getMax());
+        }
+    }
+
+    /**
+     * Returns a percentile of the durations measured for the specified timing. Returns 0 if no durations have been
+     * measured.
+     *
+     * @param timing the timing
+     * @param percentile the percentile between 0 and 100
+     * @return the percentile in seconds
+     * @throws NullPointerException if <tt>timing</tt> is <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public static double getPercentile(final Timing timing, final double percentile) {
+        synchronized (LOCK) {
+            return toSeconds(HISTOGRAMS[timing.ordinal()].getPercentile(percentile));
+        }
+    }
+
+    /**
+     * Discards all measured durations.
+     *
+     * @since 2.7
+     */
+    public static void reset() {
+        synchronized (LOCK) {
+            for (int i = 0; i < HISTOGRAMS.length; ++i) {
+                HISTOGRAMS[i].reset();
+            }
+        }
+    }
+
+    static void recordFrame(final long nanos) {
+        synchronized (LOCK) {
+            HISTOGRAMS[Timing.FRAME.ordinal()].add(nanos);
+            elementCount = currentElementCount;
+            currentElementCount = 0;
+        }
+    }
+
+    static void recordViewTick(final long dispatchNanos, final long drawNanos, final long updateNanos,
+                               final int elements) {
+        synchronized (LOCK) {
+            HISTOGRAMS[Timing.DISPATCH.ordinal()].add(dispatchNanos);
+            HISTOGRAMS[Timing.DRAW.ordinal()].add(drawNanos);
+            HISTOGRAMS[Timing.UPDATE.ordinal()].add(updateNanos);
+            currentElementCount = currentElementCount + elements;
+        }
+    }
+
+    static void setImageCacheSize(final int count, final long bytes) {
+        synchronized (LOCK) {
+            imageCacheCount = count;
+            imageCacheBytes = bytes;
+        }
+    }
+
+    private static TimeHistogram[] initHistograms() {
+        final TimeHistogram[] result = new TimeHistogram[Timing.values().length];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = new TimeHistogram();
+        }
+
+        return result;
+    }
+
+    private static double toSeconds(final long nanos) {
+        return (double) nanos / NANOS_PER_SECOND;
+    }
+
+    private EngineMetrics() {
+    }
+}
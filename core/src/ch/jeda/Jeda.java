@@ -54,6 +54,7 @@ public final class Jeda {
      * <ul>
      * <li>{@link ch.jeda.event.EventType#ACTION} events from {@link ch.jeda.ui.Widget}s
      * <li>{@link ch.jeda.event.EventType#TICK} events from the Jeda engine
+     * <li>{@link ch.jeda.event.EventType#LOAD_PROGRESS} events from {@link ch.jeda.Loader}s
      * <li>{@link ch.jeda.event.EventType#SENSOR} events from the system
      * </ul>
      * Has no effect if <code>listener</code> is <code>null</code>.
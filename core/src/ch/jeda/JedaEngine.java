@@ -57,6 +57,7 @@ class JedaEngine implements Platform.Callback, Runnable {
 
     static JedaEngine create() {
         final JedaEngine result = new JedaEngine();
+        result.platform.start();
         final Thread eventThread = new Thread(result);
         eventThread.setName(Message.get(Message.ENGINE_EVENT_THREAD_NAME));
         eventThread.setDaemon(true);
@@ -69,7 +70,7 @@ class JedaEngine implements Platform.Callback, Runnable {
         eventQueue = new EventQueue();
         frequencyMeter = new FrequencyMeter();
         pauseLock = new Object();
-        timer = new Timer(DEFAULT_TICK_FREQUENCY);
+        timer = new Timer(DEFAULT_TICK_FREQUENCY, initTimerMode(Configuration.getString("jeda.timer.mode", null)));
         // Init platform
         platform = initPlatform(Configuration.getString("jeda.platform.class", null), this);
         // Init audio manager
@@ -123,9 +124,11 @@ class JedaEngine implements Platform.Callback, Runnable {
     @Override
     public void run() {
         timer.start();
+        long frameStart = 0;
         while (true) {
             // Application is paused
             if (isPaused()) {
+                frameStart = 0;
                 try {
                     Thread.sleep(100);
                 }
@@ -135,6 +138,12 @@ class JedaEngine implements Platform.Callback, Runnable {
             }
             // Application is running
             else {
+                final long now = System.nanoTime();
+                if (frameStart != 0) {
+                    EngineMetrics.recordFrame(now - frameStart);
+                }
+
+                frameStart = now;
                 frequencyMeter.count();
                 final TickEvent event = new TickEvent(this, timer.getLastStepDuration(), frequencyMeter.getFrequency());
                 eventQueue.addEvent(event);
@@ -326,6 +335,20 @@ class JedaEngine implements Platform.Callback, Runnable {
         }
     }
 
+    private static Timer.Mode initTimerMode(final String name) {
+        if (name == null || name.isEmpty()) {
+            return Timer.Mode.REALTIME;
+        }
+
+        try {
+            return Timer.Mode.valueOf(name.toUpperCase());
+        }
+        catch (final IllegalArgumentException ex) {
+            Log.w("Unknown timer mode '", name, "', using real time.");
+            return Timer.Mode.REALTIME;
+        }
+    }
+
     private static Platform initPlatform(final String platformClassName, final Platform.Callback callback) {
         if (platformClassName == null || platformClassName.isEmpty()) {
             initErr(Message.ENGINE_ERROR_PLATFORM_MISSING_CLASS_NAME);
@@ -338,7 +361,7 @@ class JedaEngine implements Platform.Callback, Runnable {
             ctor.setAccessible(true);
             final Object result = ctor.newInstance(callback);
             if (result instanceof Platform) {
-                return (Platform) ctor.newInstance(callback);
+                return (Platform) result;
             }
             else {
                 initErr(Message.ENGINE_ERROR_PLATFORM_MISSING_INTERFACE, platformClassName, Platform.class);
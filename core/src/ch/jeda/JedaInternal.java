@@ -75,10 +75,32 @@ public class JedaInternal {
         return Jeda.getStandardTypefaceImp(standardTypeface);
     }
 
+    /**
+     * <b>Internal</b>. Do not use this method.
+     */
+    public static void loadImages(final String[] paths) {
+        Loader.loadImages(paths);
+    }
+
     /**
      * <b>Internal</b>. Do not use this method.
      */
     public static InputStream openInputStream(final String path) {
         return ResourceManager.openInputStream(path);
     }
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     */
+    public static void recordViewTick(final long dispatchNanos, final long drawNanos, final long updateNanos,
+                                      final int elements) {
+        EngineMetrics.recordViewTick(dispatchNanos, drawNanos, updateNanos, elements);
+    }
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     */
+    public static void setImageCacheSize(final int count, final long bytes) {
+        EngineMetrics.setImageCacheSize(count, bytes);
+    }
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.LoadEvent;
+import ch.jeda.tiled.TiledMap;
+import ch.jeda.ui.Image;
+import ch.jeda.ui.Typeface;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads images, sounds, Tiled maps and typefaces in the background. Resources are loaded in parallel on a pool of
+ * worker threads, so a program can go on drawing while a level is being loaded.
+ * <p>
+ * Each load method returns a {@link java.util.concurrent.Future} that provides the resource once it has been loaded.
+ * Each time a resource has been loaded, an event of type {@link ch.jeda.event.EventType#LOAD_PROGRESS} is posted. To
+ * receive these events, implement {@link ch.jeda.event.LoadProgressListener} and register the listener with
+ * {@link ch.jeda.Jeda#addEventListener(java.lang.Object)}.
+ * <p>
+ * <tt>Loader loader = new Loader();</tt><br>
+ * <tt>Future&lt;Image&gt; background = loader.loadImage("res:drawable/background.png");</tt><br>
+ * <tt>Future&lt;TiledMap&gt; map = loader.loadTiledMap("res:raw/level1.tmx");</tt>
+ *
+ * @since 2.7
+ */
+public final class Loader {
+
+    private static final int THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static ExecutorService executor;
+    private final Object lock;
+    private int loadedCount;
+    private int totalCount;
+
+    /**
+     * Constructs a new loader.
+     *
+     * @since 2.7
+     */
+    public Loader() {
+        lock = new Object();
+        loadedCount = 0;
+        totalCount = 0;
+    }
+
+    /**
+     * Returns the number of resources that have been loaded by this loader so far.
+     *
+     * @return the number of loaded resources
+     *
+     * @since 2.7
+     */
+    public int getLoadedCount() {
+        synchronized (lock) {
+            return loadedCount;
+        }
+    }
+
+    /**
+     * Returns the number of resources that have been requested from this loader.
+     *
+     * @return the number of requested resources
+     *
+     * @since 2.7
+     */
+    public int getTotalCount() {
+        synchronized (lock) {
+            return totalCount;
+        }
+    }
+
+    /**
+     * Checks if all resources requested from this loader have been loaded.
+     *
+     * @return <tt>true</tt> if all requested resources have been loaded, otherwise <tt>false</tt>
+     *
+     * @since 2.7
+     */
+    public boolean isDone() {
+        synchronized (lock) {
+            return loadedCount >= totalCount;
+        }
+    }
+
+    /**
+     * Starts loading an image in the background.
+     *
+     * @param path the path to the image file
+     * @return the future image
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     *
+     * @see ch.jeda.ui.Image#Image(java.lang.String)
+     * @since 2.7
+     */
+    public Future<Image> loadImage(final String path) {
+        return submit(path, new Callable<Image>() {
+
+            @Override
+            public Image call() {
+                return new Image(path);
+            }
+        });
+    }
+
+    /**
+     * Starts loading a sound in the background.
+     *
+     * @param path the path to the audio file
+     * @return the future sound
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     *
+     * @see ch.jeda.Sound#Sound(java.lang.String)
+     * @since 2.7
+     */
+    public Future<Sound> loadSound(final String path) {
+        return submit(path, new Callable<Sound>() {
+
+            @Override
+            public Sound call() {
+                return new Sound(path);
+            }
+        });
+    }
+
+    /**
+     * Starts loading a Tiled map in the background. The tile set images of the map are loaded in parallel.
+     *
+     * @param path the path to the Tiled map file
+     * @return the future Tiled map
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     *
+     * @see ch.jeda.tiled.TiledMap#TiledMap(java.lang.String)
+     * @since 2.7
+     */
+    public Future<TiledMap> loadTiledMap(final String path) {
+        return submit(path, new Callable<TiledMap>() {
+
+            @Override
+            public TiledMap call() {
+                return new TiledMap(path);
+            }
+        });
+    }
+
+    /**
+     * Starts loading a typeface in the background.
+     *
+     * @param path the path to the font file
+     * @return the future typeface
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     *
+     * @see ch.jeda.ui.Typeface#Typeface(java.lang.String)
+     * @since 2.7
+     */
+    public Future<Typeface> loadTypeface(final String path) {
+        return submit(path, new Callable<Typeface>() {
+
+            @Override
+            public Typeface call() {
+                return new Typeface(path);
+            }
+        });
+    }
+
+    /**
+     * Loads the images with the specified paths in parallel and waits until all of them have been loaded. The loaded
+     * images are kept in the image cache. The calling thread helps loading the images, so this method can also be
+     * called from a loader thread.
+     */
+    static void loadImages(final String[] paths) {
+        final FutureTask<?>[] tasks = new FutureTask<?>[paths.length];
+        for (int i = 0; i < paths.length; ++i) {
+            final String path = paths[i];
+            tasks[i] = new FutureTask<Image>(new Callable<Image>() {
+
+                @Override
+                public Image call() {
+                    return new Image(path);
+                }
+            });
+            getExecutor().execute(tasks[i]);
+        }
+
+        for (int i = 0; i < tasks.length; ++i) {
+            // Runs the task on the calling thread unless it has already been started by a worker thread.
+            tasks[i].run();
+            try {
+                tasks[i].get();
+            }
+            catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (final ExecutionException ex) {
+                Log.e(ex.getCause(), "Error while loading image '", paths[i], "'.");
+            }
+        }
+    }
+
+    private void loaded(final String path) {
+        final LoadEvent event;
+        synchronized (lock) {
+            ++loadedCount;
+            event = new LoadEvent(this, path, loadedCount, totalCount);
+        }
+
+        Jeda.postEvent(event);
+    }
+
+    private <T> Future<T> submit(final String path, final Callable<T> callable) {
+        if (path == null) {
+            throw new NullPointerException("path");
+        }
+
+        synchronized (lock) {
+            ++totalCount;
+        }
+
+        return getExecutor().submit(new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                try {
+                    return callable.call();
+                }
+                finally {
+                    loaded(path);
+                }
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(THREAD_COUNT, new LoaderThreadFactory());
+        }
+
+        return executor;
+    }
+
+    private static class LoaderThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread result = new Thread(runnable);
+            result.setName(Message.get(Message.ENGINE_LOADER_THREAD_NAME));
+            result.setDaemon(true);
+            return result;
+        }
+    }
+}
@@ -43,6 +43,9 @@ public class Message {
     public static final String ENGINE_ERROR_PROPERTIES_READ = "jeda.engine.error.properties-read";
     public static final String ENGINE_PROGRAM_THREAD_NAME = "jeda.engine.program-thread-name";
     public static final String ENGINE_EVENT_THREAD_NAME = "jeda.engine.event-thread-name";
+    public static final String ENGINE_LOADER_THREAD_NAME = "jeda.engine.loader-thread-name";
+    public static final String ENGINE_LOG_THREAD_NAME = "jeda.engine.log-thread-name";
+    public static final String ENGINE_RENDER_THREAD_NAME = "jeda.engine.render-thread-name";
     public static final String FILE_ERROR_NOT_FOUND = "jeda.file.error.not-found";
     public static final String FILE_ERROR_OPEN = "jeda.file.error.open";
     public static final String FILE_ERROR_READ = "jeda.file.error.read";
@@ -22,11 +22,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 
 class ResourceManager {
 
     private static final String HTTP_PREFIX = "http://";
     private static final String RESOURCE_PREFIX = "res:";
+    private static final Object ARCHIVE_LOCK = new Object();
+    private static AssetArchive archive;
+    private static boolean archiveOpened;
 
     private ResourceManager() {
     }
@@ -73,6 +77,11 @@ class ResourceManager {
 
     private static InputStream openResourceInputStream(final String path, final int prefixLength) {
         final String resourcePath = path.substring(prefixLength);
+        final ByteBuffer buffer = findArchiveEntry(resourcePath);
+        if (buffer != null) {
+            return new ByteBufferInputStream(buffer);
+        }
+
         URL url = findResource("res/" + resourcePath);
         if (url == null) {
             url = findResource(resourcePath);
@@ -93,6 +102,44 @@ class ResourceManager {
         return null;
     }
 
+    private static ByteBuffer findArchiveEntry(final String resourcePath) {
+        final AssetArchive assetArchive = getArchive();
+        if (assetArchive == null) {
+            return null;
+        }
+
+        final ByteBuffer result = assetArchive.find("res/" + resourcePath);
+        if (result == null) {
+            return assetArchive.find(resourcePath);
+        }
+        else {
+            return result;
+        }
+    }
+
+    /**
+     * Opens the asset archive specified by the property <tt>jeda.asset.archive</tt> on first use. Returns
+     * <code>null</code> if no archive is specified or the archive cannot be opened.
+     */
+    private static AssetArchive getArchive() {
+        synchronized (ARCHIVE_LOCK) {
+            if (!archiveOpened) {
+                archiveOpened = true;
+                final String archivePath = Configuration.getString("jeda.asset.archive", null);
+                if (archivePath != null) {
+                    try {
+                        archive = AssetArchive.open(archivePath);
+                    }
+                    catch (final IOException ex) {
+                        Log.e(ex, "Error while opening asset archive '", archivePath, "'.");
+                    }
+                }
+            }
+
+            return archive;
+        }
+    }
+
     private static URL findResource(final String resourcePath) {
         final URL result = Thread.currentThread().getContextClassLoader().getResource(resourcePath);
         if (result == null) {
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link ch.jeda.Storable} objects from {@link ch.jeda.Data}. The constructor of each class is looked up only
+ * once and then cached. Classes can be registered under short type tags, which are stored instead of the fully
+ * qualified class names.
+ */
+final class StorableFactory {
+
+    private static final Map<String, StorableFactory> FACTORIES = new ConcurrentHashMap<String, StorableFactory>();
+    private static final Map<Class<?>, String> TYPE_NAMES = new ConcurrentHashMap<Class<?>, String>();
+    private final Constructor<?> ctor;
+
+    private StorableFactory(final Constructor<?> ctor) {
+        this.ctor = ctor;
+    }
+
+    Storable create(final Data data) throws InstantiationException, IllegalAccessException,
+                                            InvocationTargetException {
+        return (Storable) ctor.newInstance(data);
+    }
+
+    /**
+     * Returns the factory for a type name. The type name is either a registered type tag or a fully qualified class
+     * name.
+     */
+    static StorableFactory forName(final String typeName) throws ClassNotFoundException, NoSuchMethodException {
+        StorableFactory result = FACTORIES.get(typeName);
+        if (result == null) {
+            result = create(Class.forName(typeName));
+            FACTORIES.put(typeName, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the name under which objects of the specified class are stored.
+     */
+    static String getTypeName(final Class<?> type) {
+        final String result = TYPE_NAMES.get(type);
+        if (result == null) {
+            return type.getName();
+        }
+        else {
+            return result;
+        }
+    }
+
+    static synchronized void register(final String tag, final Class<? extends Storable> type)
+        throws NoSuchMethodException {
+        final String oldTag = TYPE_NAMES.get(type);
+        if (tag.equals(oldTag)) {
+            return;
+        }
+
+        if (oldTag != null || FACTORIES.containsKey(tag)) {
+            throw new IllegalArgumentException("tag");
+        }
+
+        FACTORIES.put(tag, create(type));
+        TYPE_NAMES.put(type, tag);
+    }
+
+    /**
+     * Removes a type tag. Used by tests, since the registry is shared by the whole process.
+     */
+    static synchronized void unregister(final String tag) {
+        final StorableFactory factory = FACTORIES.remove(tag);
+        if (factory != null) {
+            TYPE_NAMES.remove(factory.ctor.getDeclaringClass());
+        }
+    }
+
+    private static StorableFactory create(final Class<?> type) throws NoSuchMethodException {
+        final Constructor<?> ctor = type.getConstructor(Data.class);
+        ctor.setAccessible(true);
+        return new StorableFactory(ctor);
+    }
+}
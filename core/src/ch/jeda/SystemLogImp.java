@@ -17,44 +17,250 @@
 package ch.jeda;
 
 import ch.jeda.platform.LogImp;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Writes log messages to the standard error stream. The calling thread only enqueues a record, the records are
+ * formatted and written in batches by a background thread. Identical consecutive records are written once, followed by
+ * the number of repetitions. When the background thread cannot keep up, debug and then info records are dropped.
+ */
 class SystemLogImp implements LogImp {
 
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int MAX_PENDING_DEBUG = 256;
+    private static final int MAX_PENDING_INFO = 4096;
+    private static final int MAX_PENDING_WARNING = 65536;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long REPEAT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final AtomicInteger dropped;
+    private final AtomicInteger pending;
+    private final ConcurrentLinkedQueue<Record> queue;
+    private final Object writeLock;
+    private Record last;
+    private int repeatCount;
+    private long repeatStart;
+    private volatile Thread thread;
+
+    SystemLogImp() {
+        dropped = new AtomicInteger();
+        pending = new AtomicInteger();
+        queue = new ConcurrentLinkedQueue<Record>();
+        writeLock = new Object();
+    }
+
     @Override
     public void d(final String message, final Throwable throwable) {
-        println("D", message);
-        printThrowable("D", throwable);
+        log("D", MAX_PENDING_DEBUG, message, throwable);
     }
 
     @Override
     public void e(final String message, final Throwable throwable) {
-        println("E", message);
-        printThrowable("E", throwable);
+        log("E", Integer.MAX_VALUE, message, throwable);
     }
 
     @Override
     public void i(final String message, final Throwable throwable) {
-        println("I", message);
-        printThrowable("I", throwable);
+        log("I", MAX_PENDING_INFO, message, throwable);
     }
 
     @Override
     public void w(final String message, final Throwable throwable) {
-        println("W", message);
-        printThrowable("W", throwable);
+        log("W", MAX_PENDING_WARNING, message, throwable);
+    }
+
+    /**
+     * Writes all pending records. Called by the background thread and when the virtual machine shuts down.
+     */
+    void flush() {
+        synchronized (writeLock) {
+            final StringBuilder out = new StringBuilder();
+            while (writeBatch(out)) {
+                // Write the next batch
+            }
+
+            writeRepeatCount(out);
+            print(out);
+        }
+    }
+
+    private void log(final String level, final int maxPending, final String message, final Throwable throwable) {
+        if (pending.get() >= maxPending) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        queue.offer(new Record(level, message, throwable));
+        if (pending.getAndIncrement() == 0) {
+            wakeUp();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (writeLock) {
+                final StringBuilder out = new StringBuilder();
+                while (writeBatch(out)) {
+                    print(out);
+                    out.setLength(0);
+                }
+
+                // Report repetitions at least once per REPEAT_NANOS, even if the record keeps being repeated.
+                if (repeatCount > 0 && System.nanoTime() - repeatStart > REPEAT_NANOS) {
+                    writeRepeatCount(out);
+                    last = null;
+                }
+
+                print(out);
+            }
+
+            if (pending.get() == 0) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+        }
+    }
+
+    private void wakeUp() {
+        Thread result = thread;
+        if (result == null) {
+            result = startThread();
+        }
+
+        LockSupport.unpark(result);
     }
 
-    private void printThrowable(final String level, final Throwable throwable) {
-        if (throwable != null) {
-            println(level, "  " + throwable);
-            final StackTraceElement[] stackTrace = throwable.getStackTrace();
+    private synchronized Thread startThread() {
+        if (thread == null) {
+            final Thread result = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    SystemLogImp.this.run();
+                }
+            });
+            result.setName(Message.get(Message.ENGINE_LOG_THREAD_NAME));
+            result.setDaemon(true);
+            result.start();
+            try {
+                Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        flush();
+                    }
+                }));
+            }
+            catch (final IllegalStateException ex) {
+                // Already shutting down
+            }
+            catch (final SecurityException ex) {
+                // Pending records may be lost at exit
+            }
+
+            thread = result;
+        }
+
+        return thread;
+    }
+
+    /**
+     * Formats up to {@link #MAX_BATCH_SIZE} pending records. Returns <tt>false</tt> if there were no pending records.
+     */
+    private boolean writeBatch(final StringBuilder out) {
+        final int droppedCount = dropped.getAndSet(0);
+        if (droppedCount > 0) {
+            writeRepeatCount(out);
+            last = null;
+            out.append("W, ").append(droppedCount).append(" log messages dropped\n");
+        }
+
+        Record record = queue.poll();
+        if (record == null) {
+            return false;
+        }
+
+        int count = 0;
+        while (record != null) {
+            pending.decrementAndGet();
+            if (record.isRepetitionOf(last)) {
+                if (repeatCount == 0) {
+                    repeatStart = System.nanoTime();
+                }
+
+                ++repeatCount;
+            }
+            else {
+                writeRepeatCount(out);
+                writeRecord(out, record);
+                last = record;
+            }
+
+            ++count;
+            if (count == MAX_BATCH_SIZE) {
+                return true;
+            }
+
+            record = queue.poll();
+        }
+
+        return true;
+    }
+
+    private void writeRecord(final StringBuilder out, final Record record) {
+        out.append(record.level).append(", ").append(record.message).append('\n');
+        if (record.throwable != null) {
+            out.append(record.level).append(",   ").append(record.throwable).append('\n');
+            final StackTraceElement[] stackTrace = record.throwable.getStackTrace();
             for (int i = 0; i < stackTrace.length; ++i) {
-                println(level, "    " + stackTrace[i].toString());
+                out.append(record.level).append(",     ").append(stackTrace[i]).append('\n');
             }
         }
     }
 
-    private void println(final String level, final String message) {
-        System.err.println(level + ", " + message);
+    private void writeRepeatCount(final StringBuilder out) {
+        if (repeatCount > 0) {
+            out.append(last.level).append(", (repeated ").append(repeatCount).append(" times)\n");
+            repeatCount = 0;
+        }
+    }
+
+    private static void print(final StringBuilder out) {
+        if (out.length() > 0) {
+            System.err.print(out);
+            System.err.flush();
+        }
+    }
+
+    private static class Record {
+
+        final String level;
+        final String message;
+        final Throwable throwable;
+
+        Record(final String level, final String message, final Throwable throwable) {
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+
+        boolean isRepetitionOf(final Record other) {
+            if (other == null || !level.equals(other.level) || !equal(message, other.message)) {
+                return false;
+            }
+
+            if (throwable == null || other.throwable == null) {
+                return throwable == other.throwable;
+            }
+
+            return equal(throwable.toString(), other.throwable.toString()) &&
+                   Arrays.equals(throwable.getStackTrace(), other.throwable.getStackTrace());
+        }
+
+        private static boolean equal(final Object a, final Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
     }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * A histogram of durations in nanoseconds with constant memory. Durations below 32ns are counted exactly. Larger
+ * durations are counted in 16 buckets per power of two, so percentiles are accurate to about 3 percent.
+ */
+final class TimeHistogram {
+
+    private static final int EXACT = 32;
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = EXACT + (63 - 5) * SUB_BUCKETS;
+    private final long[] counts;
+    private long count;
+    private long max;
+
+    TimeHistogram() {
+        counts = new long[BUCKETS];
+    }
+
+    void add(final long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+
+        ++counts[index(nanos)];
+        ++count;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the specified percentile in nanoseconds. Returns 0 if the histogram is empty.
+     */
+    long getPercentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen = seen + counts[i];
+            if (seen >= rank) {
+                return Math.min(max, value(i));
+            }
+        }
+
+        return max;
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts[i] = 0;
+        }
+
+        count = 0;
+        max = 0;
+    }
+
+    private static int index(final long nanos) {
+        if (nanos < EXACT) {
+            return (int) nanos;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        final int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT + (exponent - 5) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the middle of the bucket with the specified index.
+     */
+    private static long value(final int index) {
+        if (index < EXACT) {
+            return index;
+        }
+
+        final int exponent = (index - EXACT) / SUB_BUCKETS + 5;
+        final int sub = (index - EXACT) % SUB_BUCKETS;
+        final long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS - 1));
+    }
+}
@@ -16,15 +16,33 @@
  */
 package ch.jeda;
 
+/**
+ * Paces the ticks of the Jeda engine. In real time mode, the timer sleeps to reach the target frequency. In unlimited
+ * mode, the timer does not sleep and reports the measured step duration. In virtual mode, the timer does not sleep
+ * either, but reports a step duration of exactly one period, so that the simulation advances by the same amount per
+ * tick independently of the speed of the machine.
+ */
 class Timer {
 
+    enum Mode {
+
+        REALTIME, UNLIMITED, VIRTUAL
+    }
+
+    private final Mode mode;
     private long adjustment;
     private double targetFrequency;
-    private long lastStepDuration;
+    private double lastStepDuration;
     private long start;
+    private long startNanos;
     private long period;
 
     Timer(final double targetFrequency) {
+        this(targetFrequency, Mode.REALTIME);
+    }
+
+    Timer(final double targetFrequency, final Mode mode) {
+        this.mode = mode;
         this.targetFrequency = targetFrequency;
     }
 
@@ -33,7 +51,7 @@ class Timer {
     }
 
     double getLastStepDuration() {
-        return lastStepDuration / 1000.0;
+        return lastStepDuration;
     }
 
     void setTargetFrequency(final double hertz) {
@@ -48,6 +66,18 @@ class Timer {
     }
 
     void tick() {
+        if (mode == Mode.VIRTUAL) {
+            lastStepDuration = 1.0 / targetFrequency;
+            return;
+        }
+
+        if (mode == Mode.UNLIMITED) {
+            final long now = System.nanoTime();
+            lastStepDuration = (now - startNanos) / 1e9;
+            startNanos = now;
+            return;
+        }
+
         final long end = System.currentTimeMillis();
         final long sleepTime = period - end + start - adjustment;
         if (sleepTime > 0) {
@@ -60,12 +90,13 @@ class Timer {
         }
 
         final long now = System.currentTimeMillis();
-        lastStepDuration = now - start;
+        lastStepDuration = (now - start) / 1000.0;
         start = now;
     }
 
     void refresh() {
         start = System.currentTimeMillis();
+        startNanos = System.nanoTime();
         period = (long) (1000f / targetFrequency);
         adjustment = 0;
     }
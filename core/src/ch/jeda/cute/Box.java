@@ -19,15 +19,20 @@ package ch.jeda.cute;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Holds the objects at one position of a Cute world. A box only exists while there are objects at its position.
+ */
 class Box {
 
+    private final int index;
     private final List<CuteObject> objects;
-    private Block block;
+    private final Slice slice;
     private CuteObject[] objectsArray;
 
-    Box() {
-        block = Block.EMPTY;
-        objects = new ArrayList<CuteObject>();
+    Box(final Slice slice, final int index) {
+        this.index = index;
+        objects = new ArrayList<CuteObject>(2);
+        this.slice = slice;
     }
 
     void addObject(final CuteObject object) {
@@ -35,8 +40,8 @@ class Box {
         objectsArray = null;
     }
 
-    Block getBlock() {
-        return block;
+    int getIndex() {
+        return index;
     }
 
     List<CuteObject> getObjects() {
@@ -53,14 +58,8 @@ class Box {
     void removeObject(final CuteObject object) {
         objects.remove(object);
         objectsArray = null;
-    }
-
-    void setBlock(final Block block) {
-        if (block == null) {
-            this.block = Block.EMPTY;
-        }
-        else {
-            this.block = block;
+        if (objects.isEmpty()) {
+            slice.releaseBox(this);
         }
     }
 }
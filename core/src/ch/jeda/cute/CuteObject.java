@@ -189,11 +189,17 @@ public class CuteObject {
 
     private void changed() {
         if (box != null) {
+            if (world != null && box == world.getBox(getIntX(), getIntY(), getIntZ())) {
+                // Object stays in the same box
+                return;
+            }
+
             box.removeObject(this);
+            box = null;
         }
 
         if (world != null) {
-            box = world.getBox(getIntX(), getIntY(), getIntZ());
+            box = world.obtainBox(getIntX(), getIntY(), getIntZ());
             if (box != null) {
                 box.addObject(this);
             }
@@ -19,11 +19,23 @@ package ch.jeda.cute;
 import ch.jeda.ui.Alignment;
 import ch.jeda.ui.Window;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public final class CuteWorld {
 
+    /**
+     * The maximal height of an image drawn above its position, i.e. a speech bubble.
+     */
+    private static final int MAX_DRAW_HEIGHT = 220;
     private static final CuteObject[] NO_OBJECTS = new CuteObject[0];
+    /**
+     * The shadows in the order they are drawn. Bit i of the shadow flags of a block stands for the i-th shadow.
+     */
+    private static final Direction[] SHADOWS = {
+        Direction.WEST, Direction.SOUTH, Direction.NORTH, Direction.EAST,
+        Direction.SOUTH_WEST, Direction.SOUTH_EAST, Direction.NORTH_WEST, Direction.NORTH_EAST
+    };
     private final List<Change> changes;
     private final List<CuteObject> objects;
     private final int sizeX;
@@ -33,6 +45,11 @@ public final class CuteWorld {
     private CuteObject scrollLock;
     private double scrollX;
     private double scrollY;
+    private int[] cellHeads;
+    private int[] cellX;
+    private int[] cellY;
+    private int[] cellZ;
+    private int[] nextInCell;
 
     public CuteWorld(final int sizeX, final int sizeY, final int sizeZ) {
         changes = new ArrayList<Change>();
@@ -67,9 +84,8 @@ public final class CuteWorld {
     }
 
     public Block getBlockAt(final int x, final int y, final int z) {
-        final Box box = getBox(x, y, z);
-        if (box != null) {
-            return box.getBlock();
+        if ((0 <= y) && (y < sizeY)) {
+            return slices[y].getBlockAt(x, z);
         }
         else {
             return Block.EMPTY;
@@ -134,59 +150,37 @@ public final class CuteWorld {
     public void draw(final Window canvas) {
         checkScrollPos(canvas);
 
-        double top = Block.SIZE_Y + sizeZ * Block.SIZE_Z;
-        double screenStartY = top - scrollY;
-        int startX = (int) Math.max(0f, scrollX / Block.SIZE_X);
-        int endX = (int) Math.min(sizeX, startX + canvas.getWidth() / Block.SIZE_X + 1f);
-        int startY = 0;
-        int endY = sizeY - 1;
-        double screenStartX = Block.SIZE_X / 2.0 - scrollX % Block.SIZE_X;
+        final double top = Block.SIZE_Y + sizeZ * Block.SIZE_Z;
+        final int height = canvas.getHeight();
+        final int startX = (int) Math.max(0f, scrollX / Block.SIZE_X);
+        final int endX = (int) Math.min(sizeX, startX + canvas.getWidth() / Block.SIZE_X + 1f);
+        // Only draw the slices whose lowest layer reaches the top of the window and whose highest layer reaches its
+        // bottom.
+        final int startY = (int) Math.max(0.0, Math.floor((scrollY - top - Block.SIZE_Y) / Block.SIZE_Y));
+        final int endY = (int) Math.min(sizeY - 1.0, Math.floor(
+            (scrollY - top + height + MAX_DRAW_HEIGHT + sizeZ * Block.SIZE_Z) / Block.SIZE_Y));
+        final double screenStartX = Block.SIZE_X / 2.0 - scrollX % Block.SIZE_X;
+        double screenStartY = top - scrollY + startY * Block.SIZE_Y;
         for (int y = startY; y <= endY; y++) {
             final Slice slice = slices[y];
+            // Only draw the layers of this slice that are inside the window
+            final int startZ = (int) Math.max(0.0, Math.ceil((screenStartY - height - MAX_DRAW_HEIGHT) / Block.SIZE_Z));
+            final int endZ = (int) Math.min(sizeZ, Math.floor((screenStartY + Block.SIZE_Y) / Block.SIZE_Z));
             // Draw blocks and objects of this slice
-            double screenY = screenStartY;
-            for (int z = 0; z <= sizeZ; z++) {
+            double screenY = screenStartY - startZ * Block.SIZE_Z;
+            for (int z = startZ; z <= endZ; z++) {
                 double screenX = screenStartX;
                 for (int x = startX; x <= endX; x++) {
                     final Block block = slice.getBlockAt(x, z);
                     if (!block.isEmpty()) {
                         block.draw(canvas, screenX, screenY);
-                        if (getBlockAt(x, y, z + 1).isEmpty()) {
-                            boolean east = !getBlockAt(x + 1, y, z + 1).isEmpty();
-                            boolean north = !getBlockAt(x, y - 1, z + 1).isEmpty();
-                            boolean south = !getBlockAt(x, y + 1, z + 1).isEmpty();
-                            boolean west = !getBlockAt(x - 1, y, z + 1).isEmpty();
-                            if (east) {
-                                canvas.drawImage(screenX, screenY, Cute.getShadow(Direction.WEST), Alignment.BOTTOM_CENTER);
-                            }
-
-                            if (north) {
-                                canvas.drawImage(screenX, screenY, Cute.getShadow(Direction.SOUTH), Alignment.BOTTOM_CENTER);
-                            }
-
-                            if (south) {
-                                canvas.drawImage(screenX, screenY, Cute.getShadow(Direction.NORTH), Alignment.BOTTOM_CENTER);
-                            }
-
-                            if (west) {
-                                canvas.drawImage(screenX, screenY, Cute.getShadow(Direction.EAST), Alignment.BOTTOM_CENTER);
-                            }
-
-                            if (!north && !east && !getBlockAt(x + 1, y - 1, z + 1).isEmpty()) {
-                                canvas.drawImage(screenX, screenY, Cute.getShadow(Direction.SOUTH_WEST), Alignment.BOTTOM_CENTER);
+                        int shadows = slice.getShadowsAt(x, z);
+                        for (int i = 0; shadows != 0; ++i) {
+                            if ((shadows & 1) != 0) {
+                                canvas.drawImage(screenX, screenY, Cute.getShadow(SHADOWS[i]), Alignment.BOTTOM_CENTER);
                             }
 
-                            if (!north && !west && !getBlockAt(x - 1, y - 1, z + 1).isEmpty()) {
-                                canvas.drawImage(screenX, screenY, Cute.getShadow(Direction.SOUTH_EAST), Alignment.BOTTOM_CENTER);
-                            }
-
-                            if (!south && !east && !getBlockAt(x + 1, y + 1, z + 1).isEmpty()) {
-                                canvas.drawImage(screenX, screenY, Cute.getShadow(Direction.NORTH_WEST), Alignment.BOTTOM_CENTER);
-                            }
-
-                            if (!south && !west && !getBlockAt(x - 1, y + 1, z + 1).isEmpty()) {
-                                canvas.drawImage(screenX, screenY, Cute.getShadow(Direction.NORTH_EAST), Alignment.BOTTOM_CENTER);
-                            }
+                            shadows = shadows >>> 1;
                         }
                     }
 
@@ -204,8 +198,8 @@ public final class CuteWorld {
             }
 
             // Draw object messages of this slice
-            screenY = screenStartY;
-            for (int z = 0; z <= sizeZ; z++) {
+            screenY = screenStartY - startZ * Block.SIZE_Z;
+            for (int z = startZ; z <= endZ; z++) {
                 double screenX = screenStartX;
                 for (int x = startX; x <= endX; x++) {
                     for (final CuteObject object : slice.getObjectsAt(x, z)) {
@@ -251,16 +245,7 @@ public final class CuteWorld {
             objects.get(i).internalUpdate(dt);
         }
 
-        for (int i = 0; i < objects.size(); ++i) {
-            for (int j = i + 1; j < objects.size(); ++j) {
-                final CuteObject a = objects.get(i);
-                final CuteObject b = objects.get(j);
-                if (a.distanceTo(b) <= a.getRadius() + b.getRadius()) {
-                    a.collideWith(b);
-                    b.collideWith(a);
-                }
-            }
-        }
+        detectCollisions();
     }
 
     Box getBox(final int x, final int y, final int z) {
@@ -272,6 +257,15 @@ public final class CuteWorld {
         }
     }
 
+    Box obtainBox(final int x, final int y, final int z) {
+        if ((0 <= y) && (y < sizeY)) {
+            return slices[y].obtainBoxAt(x, z);
+        }
+        else {
+            return null;
+        }
+    }
+
     void doAddObject(final CuteObject object) {
         objects.add(object);
         object.setRenderer(this);
@@ -286,9 +280,157 @@ public final class CuteWorld {
     }
 
     void doSetBlock(final int x, final int y, final int z, final Block block) {
-        Box box = getBox(x, y, z);
-        if (box != null) {
-            box.setBlock(block);
+        if ((0 <= y) && (y < sizeY)) {
+            slices[y].setBlockAt(x, z, block);
+            // The block casts shadows on the blocks around it one layer lower
+            updateShadows(x, y, z);
+            for (int dy = -1; dy <= 1; ++dy) {
+                for (int dx = -1; dx <= 1; ++dx) {
+                    updateShadows(x + dx, y + dy, z - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the collision handlers of all pairs of touching objects. The objects are sorted into a uniform grid whose
+     * cells are as large as the largest object diameter, so two touching objects are always in the same or in
+     * neighbouring cells. The cells are kept in a hash table of linked lists, so only objects in the 27 cells around an
+     * object are tested.
+     */
+    private void detectCollisions() {
+        final int count = objects.size();
+        if (count < 2) {
+            return;
+        }
+
+        if (cellX == null || cellX.length < count) {
+            final int capacity = Math.max(count, 2 * cellCapacity());
+            cellX = new int[capacity];
+            cellY = new int[capacity];
+            cellZ = new int[capacity];
+            nextInCell = new int[capacity];
+        }
+
+        int tableSize = 1;
+        while (tableSize < 2 * count) {
+            tableSize = tableSize << 1;
+        }
+
+        if (cellHeads == null || cellHeads.length != tableSize) {
+            cellHeads = new int[tableSize];
+        }
+
+        Arrays.fill(cellHeads, -1);
+        double maxRadius = 0.0;
+        for (int i = 0; i < count; ++i) {
+            maxRadius = Math.max(maxRadius, objects.get(i).getRadius());
+        }
+
+        final double cellSize = Math.max(1.0, 2.0 * maxRadius);
+        final int mask = tableSize - 1;
+        for (int i = 0; i < count; ++i) {
+            final CuteObject object = objects.get(i);
+            cellX[i] = (int) Math.floor(object.getX() / cellSize);
+            cellY[i] = (int) Math.floor(object.getY() / cellSize);
+            cellZ[i] = (int) Math.floor(object.getZ() / cellSize);
+            final int slot = cellHash(cellX[i], cellY[i], cellZ[i]) & mask;
+            nextInCell[i] = cellHeads[slot];
+            cellHeads[slot] = i;
+        }
+
+        for (int i = 0; i < count; ++i) {
+            final CuteObject a = objects.get(i);
+            for (int dx = -1; dx <= 1; ++dx) {
+                for (int dy = -1; dy <= 1; ++dy) {
+                    for (int dz = -1; dz <= 1; ++dz) {
+                        final int x = cellX[i] + dx;
+                        final int y = cellY[i] + dy;
+                        final int z = cellZ[i] + dz;
+                        int j = cellHeads[cellHash(x, y, z) & mask];
+                        while (j != -1) {
+                            // Different cells may share a slot, only test objects that are really in this cell.
+                            if (j > i && cellX[j] == x && cellY[j] == y && cellZ[j] == z) {
+                                final CuteObject b = objects.get(j);
+                                if (a.distanceTo(b) <= a.getRadius() + b.getRadius()) {
+                                    a.collideWith(b);
+                                    b.collideWith(a);
+                                }
+                            }
+
+                            j = nextInCell[j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int cellCapacity() {
+        if (cellX == null) {
+            return 0;
+        }
+        else {
+            return cellX.length;
+        }
+    }
+
+    private static int cellHash(final int x, final int y, final int z) {
+        final int hash = x * 73856093 ^ y * 19349663 ^ z * 83492791;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Determines which shadows are cast on top of the specified block by the blocks in the next higher layer.
+     */
+    private int computeShadows(final int x, final int y, final int z) {
+        if (getBlockAt(x, y, z).isEmpty() || !getBlockAt(x, y, z + 1).isEmpty()) {
+            return 0;
+        }
+
+        final boolean east = !getBlockAt(x + 1, y, z + 1).isEmpty();
+        final boolean north = !getBlockAt(x, y - 1, z + 1).isEmpty();
+        final boolean south = !getBlockAt(x, y + 1, z + 1).isEmpty();
+        final boolean west = !getBlockAt(x - 1, y, z + 1).isEmpty();
+        int result = 0;
+        if (east) {
+            result |= 1;
+        }
+
+        if (north) {
+            result |= 1 << 1;
+        }
+
+        if (south) {
+            result |= 1 << 2;
+        }
+
+        if (west) {
+            result |= 1 << 3;
+        }
+
+        if (!north && !east && !getBlockAt(x + 1, y - 1, z + 1).isEmpty()) {
+            result |= 1 << 4;
+        }
+
+        if (!north && !west && !getBlockAt(x - 1, y - 1, z + 1).isEmpty()) {
+            result |= 1 << 5;
+        }
+
+        if (!south && !east && !getBlockAt(x + 1, y + 1, z + 1).isEmpty()) {
+            result |= 1 << 6;
+        }
+
+        if (!south && !west && !getBlockAt(x - 1, y + 1, z + 1).isEmpty()) {
+            result |= 1 << 7;
+        }
+
+        return result;
+    }
+
+    private void updateShadows(final int x, final int y, final int z) {
+        if (isValidCoordinate(x, y, z)) {
+            slices[y].setShadowsAt(x, z, computeShadows(x, y, z));
         }
     }
 
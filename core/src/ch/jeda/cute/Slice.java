@@ -19,57 +19,254 @@ package ch.jeda.cute;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Stores the blocks and objects of one y coordinate of a Cute world. Blocks are stored as indices into a palette of the
+ * blocks used in the slice. The array of indices is only allocated when the first non-empty block is set. Boxes holding
+ * objects only exist for positions that contain objects. They are kept in an open addressing hash table keyed by
+ * position. Alongside every block, the slice stores the shadows that are cast on top of it by the surrounding blocks
+ * one layer higher, so that they need not be looked up when drawing.
+ */
 class Slice {
 
     private static final List<CuteObject> NO_OBJECTS = new ArrayList<CuteObject>();
-    private final Box[] boxes;
+    private static final int INITIAL_TABLE_SIZE = 16;
     private final int sizeX;
     private final int sizeZ;
+    private Block[] palette;
+    private int paletteSize;
+    private char[] blocks;
+    private byte[] shadows;
+    private Box[] boxTable;
+    private int boxCount;
 
     Slice(final int sizeX, final int sizeZ) {
         this.sizeX = sizeX;
         this.sizeZ = sizeZ;
-        int size = sizeX * sizeZ;
-        boxes = new Box[size];
-        for (int i = 0; i < size; i++) {
-            boxes[i] = new Box();
+        palette = new Block[]{Block.EMPTY, null, null, null};
+        paletteSize = 1;
+        blocks = null;
+        shadows = null;
+        boxTable = null;
+        boxCount = 0;
+    }
+
+    Block getBlockAt(final int x, final int z) {
+        if (blocks != null && 0 <= x && x < sizeX && 0 <= z && z < sizeZ) {
+            return palette[blocks[x + z * sizeX]];
+        }
+        else {
+            return Block.EMPTY;
         }
     }
 
-    void addObject(final int x, final int z, final CuteObject object) {
-        if (0 <= x && x < sizeX &&
-            0 <= z && z < sizeZ) {
-            boxes[(x + z * sizeX)].addObject(object);
+    /**
+     * Returns the box at the specified position. Returns <tt>null</tt> if there are no objects at the position.
+     */
+    Box getBoxAt(final int x, final int z) {
+        if (boxCount == 0 || x < 0 || x >= sizeX || z < 0 || z >= sizeZ) {
+            return null;
         }
+
+        final int index = x + z * sizeX;
+        int slot = slotOf(index);
+        while (boxTable[slot] != null) {
+            if (boxTable[slot].getIndex() == index) {
+                return boxTable[slot];
+            }
+
+            slot = (slot + 1) & (boxTable.length - 1);
+        }
+
+        return null;
     }
 
-    Block getBlockAt(final int x, final int z) {
+    List<CuteObject> getObjectsAt(final int x, final int z) {
         final Box box = getBoxAt(x, z);
         if (box != null) {
-            return box.getBlock();
+            return box.getObjects();
         }
         else {
-            return Block.EMPTY;
+            return NO_OBJECTS;
         }
     }
 
-    Box getBoxAt(int x, int z) {
-        if (0 <= x && x < sizeX &&
-            0 <= z && z < sizeZ) {
-            return boxes[(x + z * sizeX)];
+    /**
+     * Returns the flags of the shadows cast on the block at the specified position.
+     */
+    int getShadowsAt(final int x, final int z) {
+        if (shadows != null && 0 <= x && x < sizeX && 0 <= z && z < sizeZ) {
+            return shadows[x + z * sizeX] & 0xff;
         }
         else {
+            return 0;
+        }
+    }
+
+    boolean hasObjects() {
+        return boxCount > 0;
+    }
+
+    /**
+     * Returns the box at the specified position, creating it if necessary. Returns <tt>null</tt> if the position is
+     * outside of the slice.
+     */
+    Box obtainBoxAt(final int x, final int z) {
+        if (x < 0 || x >= sizeX || z < 0 || z >= sizeZ) {
             return null;
         }
+
+        final Box result = getBoxAt(x, z);
+        if (result != null) {
+            return result;
+        }
+
+        if (boxTable == null) {
+            boxTable = new Box[INITIAL_TABLE_SIZE];
+        }
+        else if (2 * (boxCount + 1) > boxTable.length) {
+            resizeBoxTable(2 * boxTable.length);
+        }
+
+        final Box box = new Box(this, x + z * sizeX);
+        insertBox(box);
+        ++boxCount;
+        return box;
     }
 
-    List<CuteObject> getObjectsAt(int x, int z) {
-        final Box box = getBoxAt(x, z);
-        if (box != null) {
-            return box.getObjects();
+    /**
+     * Removes an empty box from the slice.
+     */
+    void releaseBox(final Box box) {
+        int slot = slotOf(box.getIndex());
+        while (boxTable[slot] != box) {
+            if (boxTable[slot] == null) {
+                return;
+            }
+
+            slot = (slot + 1) & (boxTable.length - 1);
         }
-        else {
-            return NO_OBJECTS;
+
+        boxTable[slot] = null;
+        --boxCount;
+        // Reinsert the following boxes of the cluster, so that lookups do not stop at the freed slot
+        slot = (slot + 1) & (boxTable.length - 1);
+        while (boxTable[slot] != null) {
+            final Box moved = boxTable[slot];
+            boxTable[slot] = null;
+            insertBox(moved);
+            slot = (slot + 1) & (boxTable.length - 1);
+        }
+    }
+
+    void setBlockAt(final int x, final int z, Block block) {
+        if (x < 0 || x >= sizeX || z < 0 || z >= sizeZ) {
+            return;
+        }
+
+        if (block == null) {
+            block = Block.EMPTY;
+        }
+
+        if (blocks == null) {
+            if (block.isEmpty()) {
+                return;
+            }
+
+            blocks = new char[sizeX * sizeZ];
+            shadows = new byte[sizeX * sizeZ];
+        }
+
+        blocks[x + z * sizeX] = paletteIndexOf(block);
+    }
+
+    void setShadowsAt(final int x, final int z, final int flags) {
+        if (x < 0 || x >= sizeX || z < 0 || z >= sizeZ) {
+            return;
+        }
+
+        if (shadows == null) {
+            // Shadows are only cast on non-empty blocks
+            return;
+        }
+
+        shadows[x + z * sizeX] = (byte) flags;
+    }
+
+    private void insertBox(final Box box) {
+        int slot = slotOf(box.getIndex());
+        while (boxTable[slot] != null) {
+            slot = (slot + 1) & (boxTable.length - 1);
+        }
+
+        boxTable[slot] = box;
+    }
+
+    private char paletteIndexOf(final Block block) {
+        for (int i = 0; i < paletteSize; ++i) {
+            if (palette[i] == block) {
+                return (char) i;
+            }
+        }
+
+        if (paletteSize > Character.MAX_VALUE) {
+            compactPalette();
+        }
+
+        if (paletteSize == palette.length) {
+            final Block[] newPalette = new Block[2 * palette.length];
+            System.arraycopy(palette, 0, newPalette, 0, paletteSize);
+            palette = newPalette;
+        }
+
+        palette[paletteSize] = block;
+        ++paletteSize;
+        return (char) (paletteSize - 1);
+    }
+
+    /**
+     * Removes blocks that are no longer used in the slice from the palette.
+     */
+    private void compactPalette() {
+        final boolean[] used = new boolean[paletteSize];
+        used[0] = true;
+        for (int i = 0; i < blocks.length; ++i) {
+            used[blocks[i]] = true;
         }
+
+        final char[] newIndex = new char[paletteSize];
+        int newSize = 0;
+        for (int i = 0; i < paletteSize; ++i) {
+            if (used[i]) {
+                palette[newSize] = palette[i];
+                newIndex[i] = (char) newSize;
+                ++newSize;
+            }
+        }
+
+        for (int i = newSize; i < paletteSize; ++i) {
+            palette[i] = null;
+        }
+
+        for (int i = 0; i < blocks.length; ++i) {
+            blocks[i] = newIndex[blocks[i]];
+        }
+
+        paletteSize = newSize;
+    }
+
+    private void resizeBoxTable(final int newSize) {
+        final Box[] oldTable = boxTable;
+        boxTable = new Box[newSize];
+        for (int i = 0; i < oldTable.length; ++i) {
+            if (oldTable[i] != null) {
+                insertBox(oldTable[i]);
+            }
+        }
+    }
+
+    private int slotOf(final int index) {
+        // Spread the bits of the position index, neighbouring positions would otherwise form long clusters.
+        final int hash = index * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (boxTable.length - 1);
     }
 }
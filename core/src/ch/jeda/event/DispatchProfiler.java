@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.event;
+
+import ch.jeda.Configuration;
+import ch.jeda.Log;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures how long each event listener takes to handle events. The timings are kept separately for each listener
+ * class and event type. For each combination, the most recent timings are kept to compute percentiles. A warning is
+ * logged when a listener takes longer than the budget, at most once per second for each listener class and event
+ * type.
+ * <p>
+ * If the property <tt>jeda.event.budget</tt> is set to a positive number of milliseconds, all event queues are
+ * profiled with a shared profiler using that budget.
+ *
+ * @see EventQueue#setProfiler(ch.jeda.event.DispatchProfiler)
+ * @since 2.7
+ */
+public final class DispatchProfiler {
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final int WINDOW_SIZE = 1024;
+    private static DispatchProfiler configured;
+    private static boolean configuredInitialized;
+    private final long budgetNanos;
+    private final Map<Class<?>, Stats[]> stats;
+
+    /**
+     * Constructs a new dispatch profiler.
+     *
+     * @param budget the maximal time in seconds a listener may take to handle an event without a warning
+     * @throws IllegalArgumentException if <tt>budget</tt> is not positive
+     *
+     * @since 2.7
+     */
+    public DispatchProfiler(final double budget) {
+        if (budget <= 0.0) {
+            throw new IllegalArgumentException("budget");
+        }
+
+        budgetNanos = (long) (budget * NANOS_PER_SECOND);
+        stats = new HashMap<Class<?>, Stats[]>();
+    }
+
+    /**
+     * Returns the budget of this profiler.
+     *
+     * @return the budget in seconds
+     *
+     * @since 2.7
+     */
+    public double getBudget() {
+        return (double) budgetNanos / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Returns a percentile of the recent times a listener class took to handle events of a type. Returns
+     * <tt>Double.NaN</tt> if no such events have been handled.
+     *
+     * @param listenerClass the listener class
+     * @param type the event type
+     * @param percentile the percentile between 0 and 100
+     * @return the percentile in seconds
+     *
+     * @since 2.7
+     */
+    public synchronized double getPercentile(final Class<?> listenerClass, final EventType type,
+                                             final double percentile) {
+        final Stats[] listenerStats = stats.get(listenerClass);
+        if (listenerStats == null || listenerStats[type.ordinal()] == null) {
+            return Double.NaN;
+        }
+        else {
+            return (double) listenerStats[type.ordinal()].percentile(percentile) / NANOS_PER_SECOND;
+        }
+    }
+
+    /**
+     * Logs the count, median, 95th and 99th percentile and maximum of the handling times of each listener class and
+     * event type.
+     *
+     * @since 2.7
+     */
+    public synchronized void report() {
+        for (final Map.Entry<Class<?>, Stats[]> entry : stats.entrySet()) {
+            for (int i = 0; i < EVENT_TYPES.length; ++i) {
+                final Stats s = entry.getValue()[i];
+                if (s != null) {
+                    Log.i(entry.getKey().getName(), " ", EVENT_TYPES[i], ": count=", s.count,
+                          ", p50=", toMillis(s.percentile(50.0)), "ms, p95=", toMillis(s.percentile(95.0)),
+                          "ms, p99=", toMillis(s.percentile(99.0)), "ms, max=", toMillis(s.max), "ms");
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards all timings.
+     *
+     * @since 2.7
+     */
+    public synchronized void reset() {
+        stats.clear();
+    }
+
+    synchronized void record(final Object listener, final EventType type, final long nanos) {
+        final Class<?> listenerClass = listener.getClass();
+        Stats[] listenerStats = stats.get(listenerClass);
+        if (listenerStats == null) {
+            listenerStats = new Stats[EVENT_TYPES.length];
+            stats.put(listenerClass, listenerStats);
+        }
+
+        Stats s = listenerStats[type.ordinal()];
+        if (s == null) {
+            s = new Stats();
+            listenerStats[type.ordinal()] = s;
+        }
+
+        s.add(nanos);
+        if (nanos > budgetNanos) {
+            final long now = System.nanoTime();
+            if (s.overBudget == 0 || now - s.lastWarning >= NANOS_PER_SECOND) {
+                Log.w("Listener ", listenerClass.getName(), " took ", toMillis(nanos), "ms to handle ", type,
+                      " event, the budget is ", toMillis(budgetNanos), "ms (", s.overBudget + 1,
+                      " times over budget).");
+                s.lastWarning = now;
+            }
+
+            ++s.overBudget;
+        }
+    }
+
+    /**
+     * Returns the profiler specified by the property <tt>jeda.event.budget</tt> or <tt>null</tt> if the property is
+     * not set.
+     */
+    static synchronized DispatchProfiler getConfigured() {
+        if (!configuredInitialized) {
+            configuredInitialized = true;
+            final int budget = Configuration.getInt("jeda.event.budget", 0);
+            if (budget > 0) {
+                configured = new DispatchProfiler(budget / 1000.0);
+            }
+        }
+
+        return configured;
+    }
+
+    private static double toMillis(final long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    private static final class Stats {
+
+        private final long[] window;
+        private long count;
+        private long lastWarning;
+        private long max;
+        private long overBudget;
+
+        Stats() {
+            window = new long[WINDOW_SIZE];
+        }
+
+        void add(final long nanos) {
+            window[(int) (count % WINDOW_SIZE)] = nanos;
+            ++count;
+            if (nanos > max) {
+                max = nanos;
+            }
+        }
+
+        long percentile(final double percentile) {
+            final int size = (int) Math.min(count, WINDOW_SIZE);
+            final long[] sorted = Arrays.copyOf(window, size);
+            Arrays.sort(sorted);
+            final int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+    }
+}
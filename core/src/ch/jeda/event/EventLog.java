@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.event;
+
+import ch.jeda.ui.Element;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Defines the binary format shared by {@link EventRecorder} and {@link EventReplay}. A log starts with {@link #MAGIC}
+ * followed by one record per input event. A record consists of the tick number (as difference to the previous
+ * record), the number of other events dispatched before it in the same tick, the event type and the event data.
+ * Integers are written as variable length quantities.
+ */
+final class EventLog {
+
+    static final int MAGIC = 0x4a455631;
+    private static final Set<EventType> INPUT_TYPES = initInputTypes();
+
+    /**
+     * Checks if an event is user or device input. Events posted by elements are not input, as they are produced again
+     * from the input when a log is replayed.
+     */
+    static boolean isInput(final Event event) {
+        return INPUT_TYPES.contains(event.getType()) && !(event.getSource() instanceof Element);
+    }
+
+    static int readVarInt(final DataInput in) throws IOException {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            result = result | ((b & 0x7f) << shift);
+            shift = shift + 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    static void writeVarInt(final DataOutput out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value = value >>> 7;
+        }
+
+        out.writeByte(value);
+    }
+
+    private static Set<EventType> initInputTypes() {
+        return EnumSet.of(EventType.KEY_DOWN, EventType.KEY_TYPED, EventType.KEY_UP, EventType.MESSAGE_RECEIVED,
+                          EventType.POINTER_DOWN, EventType.POINTER_MOVED, EventType.POINTER_UP, EventType.SENSOR,
+                          EventType.WHEEL);
+    }
+
+    private EventLog() {
+    }
+}
@@ -19,18 +19,22 @@ package ch.jeda.event;
 import ch.jeda.Log;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * This class represents the an event queue. This class is thread-safe.
  *
  * @since 1.4
- * @version 2
+ * @version 5
  */
 public final class EventQueue {
 
+    private static final Set<EventType> ALL_TYPES = EnumSet.allOf(EventType.class);
     private final List<ActionListener> actionListeners;
     private final List<ConnectionAcceptedListener> connectionAcceptedListeners;
     private final List<ConnectionClosedListener> connectionClosedListeners;
@@ -41,8 +45,9 @@ public final class EventQueue {
     private final List<KeyUpListener> keyUpListeners;
     private final Object listenerLock;
     private final Set<Object> listeners;
+    private final List<LoadProgressListener> loadProgressListeners;
     private final List<MessageReceivedListener> messageReceivedListeners;
-    private final Set<Object> pendingInsertions;
+    private final Map<Object, Set<EventType>> pendingInsertions;
     private final Set<Object> pendingRemovals;
     private final List<PointerDownListener> pointerDownListeners;
     private final List<PointerMovedListener> pointerMovedListeners;
@@ -52,6 +57,10 @@ public final class EventQueue {
     private final List<WheelListener> wheelListeners;
     private List<Event> eventsIn;
     private List<Event> eventsOut;
+    private volatile DispatchProfiler profiler;
+    private EventRecorder recorder;
+    private EventReplay replay;
+    private int tickCount;
 
     /**
      * Constructs a new event queue.
@@ -69,8 +78,9 @@ public final class EventQueue {
         keyUpListeners = new ArrayList<KeyUpListener>();
         listenerLock = new Object();
         listeners = new HashSet<Object>();
+        loadProgressListeners = new ArrayList<LoadProgressListener>();
         messageReceivedListeners = new ArrayList<MessageReceivedListener>();
-        pendingInsertions = new HashSet<Object>();
+        pendingInsertions = new HashMap<Object, Set<EventType>>();
         pendingRemovals = new HashSet<Object>();
         pointerDownListeners = new ArrayList<PointerDownListener>();
         pointerMovedListeners = new ArrayList<PointerMovedListener>();
@@ -80,6 +90,8 @@ public final class EventQueue {
         tickListeners = new ArrayList<TickListener>();
         eventsIn = new ArrayList<Event>();
         eventsOut = new ArrayList<Event>();
+        profiler = DispatchProfiler.getConfigured();
+        tickCount = 0;
     }
 
     /**
@@ -121,32 +133,78 @@ public final class EventQueue {
      * @since 1.4
      */
     public void addListener(final Object listener) {
+        addListener(listener, ALL_TYPES);
+    }
+
+    /**
+     * Adds an event listener to the event queue that only receives events of the specified types. Has no effect if
+     * <tt>listener</tt> is <tt>null</tt> or the listener has already been added to the event queue.
+     *
+     * @param listener the listener to add
+     * @param types the types of events the listener receives
+     * @throws NullPointerException if <tt>types</tt> is <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public void addListener(final Object listener, final Set<EventType> types) {
+        if (types == null) {
+            throw new NullPointerException("types");
+        }
+
         if (listener != null) {
             synchronized (listenerLock) {
                 if (listeners.contains(listener)) {
                     pendingRemovals.remove(listener);
                 }
                 else {
-                    pendingInsertions.add(listener);
+                    final Set<EventType> copy = EnumSet.noneOf(EventType.class);
+                    copy.addAll(types);
+                    pendingInsertions.put(listener, copy);
                 }
             }
         }
     }
 
+    /**
+     * Returns the profiler of this event queue.
+     *
+     * @return the profiler of this event queue or <tt>null</tt> if this event queue is not profiled
+     *
+     * @see #setProfiler(ch.jeda.event.DispatchProfiler)
+     * @since 2.7
+     */
+    public DispatchProfiler getProfiler() {
+        return profiler;
+    }
+
     /**
      * Sends all events in the queue to the appropriate registered listeners. Remoaves all events from the queue.
      *
      * @since 1.4
      */
     public void processEvents() {
+        final EventRecorder currentRecorder;
+        final EventReplay currentReplay;
         // Switch input and output list
         synchronized (eventLock) {
             final List<Event> temp = eventsOut;
             eventsOut = eventsIn;
             eventsIn = temp;
             eventsIn.clear();
+            currentRecorder = recorder;
+            currentReplay = replay;
         }
 
+        if (currentReplay != null) {
+            currentReplay.replay(tickCount, eventsOut);
+        }
+
+        if (currentRecorder != null) {
+            currentRecorder.record(tickCount, eventsOut);
+        }
+
+        ++tickCount;
+
         // Distribute events to child event queues.
         for (int i = 0; i < eventQueues.size(); ++i) {
             eventQueues.get(i).addEvents(eventsOut);
@@ -179,6 +237,47 @@ public final class EventQueue {
         }
     }
 
+    /**
+     * Sets the profiler for this event queue. The profiler measures the time each listener takes to handle the events
+     * dispatched by this event queue. Pass <tt>null</tt> to stop profiling.
+     *
+     * @param profiler the profiler or <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public void setProfiler(final DispatchProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Sets the recorder for this event queue. The recorder receives all input events that are processed by this event
+     * queue. Each call to {@link #processEvents()} counts as one tick. Pass <tt>null</tt> to stop recording.
+     *
+     * @param recorder the recorder or <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public void setRecorder(final EventRecorder recorder) {
+        synchronized (eventLock) {
+            this.recorder = recorder;
+        }
+    }
+
+    /**
+     * Sets the replay for this event queue. While a replay is set, input events added to this event queue are discarded
+     * and the recorded input events are processed instead. Each call to {@link #processEvents()} counts as one tick.
+     * Pass <tt>null</tt> to stop replaying.
+     *
+     * @param replay the replay or <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public void setReplay(final EventReplay replay) {
+        synchronized (eventLock) {
+            this.replay = replay;
+        }
+    }
+
     private void dispatchEvent(final Event event) {
         // Pending listener operations must be processed before every event dispatch. Otherwise, an event might be
         // delivered to a listener that has been removed during the last event dispatch.
@@ -202,6 +301,9 @@ public final class EventQueue {
             case KEY_UP:
                 dispatchKeyUpEvent((KeyEvent) event);
                 break;
+            case LOAD_PROGRESS:
+                dispatchLoadProgressEvent((LoadEvent) event);
+                break;
             case MESSAGE_RECEIVED:
                 dispatchMessageReceivedEvent((MessageEvent) event);
                 break;
@@ -229,6 +331,7 @@ public final class EventQueue {
     private void dispatchActionEvent(final ActionEvent event) {
         int i = 0;
         while (i < actionListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 actionListeners.get(i).onAction(event);
             }
@@ -236,6 +339,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(actionListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -243,6 +348,7 @@ public final class EventQueue {
     private void dispatchConnectionAcceptedEvent(final ConnectionEvent event) {
         int i = 0;
         while (i < connectionAcceptedListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 connectionAcceptedListeners.get(i).onConnectionAccepted(event);
             }
@@ -250,6 +356,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(connectionAcceptedListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -257,6 +365,7 @@ public final class EventQueue {
     private void dispatchConnectionClosedEvent(final ConnectionEvent event) {
         int i = 0;
         while (i < connectionClosedListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 connectionClosedListeners.get(i).onConnectionClosed(event);
             }
@@ -264,6 +373,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(connectionClosedListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -271,6 +382,7 @@ public final class EventQueue {
     private void dispatchKeyDownEvent(final KeyEvent event) {
         int i = 0;
         while (i < keyDownListeners.size()) {
+            final long start = startTiming();
             try {
                 keyDownListeners.get(i).onKeyDown(event);
             }
@@ -278,6 +390,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(keyDownListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -285,6 +399,7 @@ public final class EventQueue {
     private void dispatchKeyTypedEvent(final KeyEvent event) {
         int i = 0;
         while (i < keyTypedListeners.size()) {
+            final long start = startTiming();
             try {
                 keyTypedListeners.get(i).onKeyTyped(event);
             }
@@ -292,6 +407,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(keyTypedListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -299,6 +416,7 @@ public final class EventQueue {
     private void dispatchKeyUpEvent(final KeyEvent event) {
         int i = 0;
         while (i < keyUpListeners.size()) {
+            final long start = startTiming();
             try {
                 keyUpListeners.get(i).onKeyUp(event);
             }
@@ -306,6 +424,25 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(keyUpListeners.get(i), event, start);
+
+            ++i;
+        }
+    }
+
+    private void dispatchLoadProgressEvent(final LoadEvent event) {
+        int i = 0;
+        while (i < loadProgressListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
+            try {
+                loadProgressListeners.get(i).onLoadProgress(event);
+            }
+            catch (final Throwable ex) {
+                reportError(ex);
+            }
+
+            stopTiming(loadProgressListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -313,6 +450,7 @@ public final class EventQueue {
     private void dispatchMessageReceivedEvent(final MessageEvent event) {
         int i = 0;
         while (i < messageReceivedListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 messageReceivedListeners.get(i).onMessageReceived(event);
             }
@@ -320,6 +458,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(messageReceivedListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -327,6 +467,7 @@ public final class EventQueue {
     private void dispatchPointerDownEvent(final PointerEvent event) {
         int i = 0;
         while (i < pointerDownListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 pointerDownListeners.get(i).onPointerDown(event);
             }
@@ -334,6 +475,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(pointerDownListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -341,6 +484,7 @@ public final class EventQueue {
     private void dispatchPointerMovedEvent(final PointerEvent event) {
         int i = 0;
         while (i < pointerMovedListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 pointerMovedListeners.get(i).onPointerMoved(event);
             }
@@ -348,6 +492,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(pointerMovedListeners.get(i), event, start);
+
             ++i;
         }
 
@@ -356,6 +502,7 @@ public final class EventQueue {
     private void dispatchPointerUpEvent(final PointerEvent event) {
         int i = 0;
         while (i < pointerUpListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 pointerUpListeners.get(i).onPointerUp(event);
             }
@@ -363,6 +510,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(pointerUpListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -370,6 +519,7 @@ public final class EventQueue {
     private void dispatchSensorEvent(final SensorEvent event) {
         int i = 0;
         while (i < sensorListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 sensorListeners.get(i).onSensorChanged(event);
             }
@@ -377,6 +527,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(sensorListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -384,6 +536,7 @@ public final class EventQueue {
     private void dispatchTickEvent(final TickEvent event) {
         int i = 0;
         while (i < tickListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 tickListeners.get(i).onTick(event);
             }
@@ -391,6 +544,8 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(tickListeners.get(i), event, start);
+
             ++i;
         }
     }
@@ -398,6 +553,7 @@ public final class EventQueue {
     private void dispatchWheelEvent(final PointerEvent event) {
         int i = 0;
         while (i < wheelListeners.size() && !event.isConsumed()) {
+            final long start = startTiming();
             try {
                 wheelListeners.get(i).onWheel(event);
             }
@@ -405,21 +561,23 @@ public final class EventQueue {
                 reportError(ex);
             }
 
+            stopTiming(wheelListeners.get(i), event, start);
+
             ++i;
         }
     }
 
-    private void doAddListener(final Object listener) {
+    private void doAddListener(final Object listener, final Set<EventType> types) {
         listeners.add(listener);
-        if (listener instanceof ActionListener) {
+        if (listener instanceof ActionListener && types.contains(EventType.ACTION)) {
             actionListeners.add((ActionListener) listener);
         }
 
-        if (listener instanceof ConnectionAcceptedListener) {
+        if (listener instanceof ConnectionAcceptedListener && types.contains(EventType.CONNECTION_ACCEPTED)) {
             connectionAcceptedListeners.add((ConnectionAcceptedListener) listener);
         }
 
-        if (listener instanceof ConnectionClosedListener) {
+        if (listener instanceof ConnectionClosedListener && types.contains(EventType.CONNECTION_CLOSED)) {
             connectionClosedListeners.add((ConnectionClosedListener) listener);
         }
 
@@ -427,43 +585,47 @@ public final class EventQueue {
             eventQueues.add((EventQueue) listener);
         }
 
-        if (listener instanceof KeyDownListener) {
+        if (listener instanceof KeyDownListener && types.contains(EventType.KEY_DOWN)) {
             keyDownListeners.add((KeyDownListener) listener);
         }
 
-        if (listener instanceof KeyTypedListener) {
+        if (listener instanceof KeyTypedListener && types.contains(EventType.KEY_TYPED)) {
             keyTypedListeners.add((KeyTypedListener) listener);
         }
 
-        if (listener instanceof KeyUpListener) {
+        if (listener instanceof KeyUpListener && types.contains(EventType.KEY_UP)) {
             keyUpListeners.add((KeyUpListener) listener);
         }
 
-        if (listener instanceof MessageReceivedListener) {
+        if (listener instanceof LoadProgressListener && types.contains(EventType.LOAD_PROGRESS)) {
+            loadProgressListeners.add((LoadProgressListener) listener);
+        }
+
+        if (listener instanceof MessageReceivedListener && types.contains(EventType.MESSAGE_RECEIVED)) {
             messageReceivedListeners.add((MessageReceivedListener) listener);
         }
 
-        if (listener instanceof PointerDownListener) {
+        if (listener instanceof PointerDownListener && types.contains(EventType.POINTER_DOWN)) {
             pointerDownListeners.add((PointerDownListener) listener);
         }
 
-        if (listener instanceof PointerMovedListener) {
+        if (listener instanceof PointerMovedListener && types.contains(EventType.POINTER_MOVED)) {
             pointerMovedListeners.add((PointerMovedListener) listener);
         }
 
-        if (listener instanceof PointerUpListener) {
+        if (listener instanceof PointerUpListener && types.contains(EventType.POINTER_UP)) {
             pointerUpListeners.add((PointerUpListener) listener);
         }
 
-        if (listener instanceof SensorListener) {
+        if (listener instanceof SensorListener && types.contains(EventType.SENSOR)) {
             sensorListeners.add((SensorListener) listener);
         }
 
-        if (listener instanceof TickListener) {
+        if (listener instanceof TickListener && types.contains(EventType.TICK)) {
             tickListeners.add((TickListener) listener);
         }
 
-        if (listener instanceof WheelListener) {
+        if (listener instanceof WheelListener && types.contains(EventType.WHEEL)) {
             wheelListeners.add((WheelListener) listener);
         }
     }
@@ -498,6 +660,10 @@ public final class EventQueue {
             keyUpListeners.remove((KeyUpListener) listener);
         }
 
+        if (listener instanceof LoadProgressListener) {
+            loadProgressListeners.remove((LoadProgressListener) listener);
+        }
+
         if (listener instanceof MessageReceivedListener) {
             messageReceivedListeners.remove((MessageReceivedListener) listener);
         }
@@ -533,8 +699,8 @@ public final class EventQueue {
                 doRemoveListener(listener);
             }
 
-            for (final Object listener : pendingInsertions) {
-                doAddListener(listener);
+            for (final Map.Entry<Object, Set<EventType>> entry : pendingInsertions.entrySet()) {
+                doAddListener(entry.getKey(), entry.getValue());
             }
 
             pendingRemovals.clear();
@@ -545,4 +711,20 @@ public final class EventQueue {
     private void reportError(final Throwable ex) {
         Log.e(ex, "Error while dispatching event.");
     }
+
+    private long startTiming() {
+        if (profiler == null) {
+            return 0L;
+        }
+        else {
+            return System.nanoTime();
+        }
+    }
+
+    private void stopTiming(final Object listener, final Event event, final long start) {
+        final DispatchProfiler current = profiler;
+        if (current != null && start != 0L) {
+            current.record(listener, event.getType(), System.nanoTime() - start);
+        }
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.event;
+
+import ch.jeda.Log;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Records the input events processed by an {@link EventQueue} together with the tick they were processed in. The
+ * recording can be fed back into an event queue with {@link EventReplay}. Key, pointer, wheel, sensor and message
+ * events are recorded. Events posted by elements are not recorded.
+ *
+ * @see EventQueue#setRecorder(ch.jeda.event.EventRecorder)
+ * @since 2.7
+ */
+public final class EventRecorder {
+
+    private final DataOutputStream out;
+    private boolean failed;
+    private int lastTick;
+
+    /**
+     * Constructs a new event recorder that writes to the specified output stream.
+     *
+     * @param out the stream to write the recording to
+     * @throws IOException if the stream cannot be written
+     * @throws NullPointerException if <tt>out</tt> is <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public EventRecorder(final OutputStream out) throws IOException {
+        if (out == null) {
+            throw new NullPointerException("out");
+        }
+
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(EventLog.MAGIC);
+        this.out.flush();
+        failed = false;
+        lastTick = 0;
+    }
+
+    /**
+     * Closes the underlying output stream. No more events are recorded afterwards.
+     *
+     * @since 2.7
+     */
+    public synchronized void close() {
+        if (!failed) {
+            failed = true;
+            try {
+                out.close();
+            }
+            catch (final IOException ex) {
+                Log.e(ex, "Error while closing event recording.");
+            }
+        }
+    }
+
+    synchronized void record(final int tick, final List<Event> events) {
+        if (failed) {
+            return;
+        }
+
+        try {
+            boolean written = false;
+            int position = 0;
+            for (int i = 0; i < events.size(); ++i) {
+                final Event event = events.get(i);
+                if (EventLog.isInput(event)) {
+                    EventLog.writeVarInt(out, tick - lastTick);
+                    EventLog.writeVarInt(out, position);
+                    writeEvent(event);
+                    lastTick = tick;
+                    written = true;
+                }
+                else {
+                    ++position;
+                }
+            }
+
+            if (written) {
+                out.flush();
+            }
+        }
+        catch (final IOException ex) {
+            Log.e(ex, "Error while recording events.");
+            failed = true;
+        }
+    }
+
+    private void writeEvent(final Event event) throws IOException {
+        out.writeByte(event.getType().ordinal());
+        switch (event.getType()) {
+            case KEY_DOWN:
+            case KEY_TYPED:
+            case KEY_UP:
+                final KeyEvent keyEvent = (KeyEvent) event;
+                EventLog.writeVarInt(out, keyEvent.getKey().ordinal());
+                EventLog.writeVarInt(out, keyEvent.getKeyChar());
+                EventLog.writeVarInt(out, keyEvent.getRepeatCount());
+                break;
+            case MESSAGE_RECEIVED:
+                out.writeUTF(((MessageEvent) event).getLine());
+                break;
+            case POINTER_DOWN:
+            case POINTER_MOVED:
+            case POINTER_UP:
+            case WHEEL:
+                final PointerEvent pointerEvent = (PointerEvent) event;
+                EventLog.writeVarInt(out, pointerEvent.getPointerId());
+                int buttons = 0;
+                for (final Button button : Button.values()) {
+                    if (pointerEvent.isPressed(button)) {
+                        buttons = buttons | (1 << button.ordinal());
+                    }
+                }
+
+                out.writeByte(buttons);
+                out.writeFloat(pointerEvent.getWheel());
+                out.writeFloat(pointerEvent.getViewX());
+                out.writeFloat(pointerEvent.getViewY());
+                out.writeFloat(pointerEvent.getWorldX());
+                out.writeFloat(pointerEvent.getWorldY());
+                break;
+            case SENSOR:
+                final SensorEvent sensorEvent = (SensorEvent) event;
+                out.writeByte(sensorEvent.getSensorType().ordinal());
+                out.writeBoolean(sensorEvent.isMaximum());
+                out.writeDouble(sensorEvent.getValue());
+                out.writeDouble(sensorEvent.getX());
+                out.writeDouble(sensorEvent.getY());
+                out.writeDouble(sensorEvent.getZ());
+                break;
+        }
+    }
+}
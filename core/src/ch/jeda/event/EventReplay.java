@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.event;
+
+import ch.jeda.Connection;
+import ch.jeda.Log;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Feeds input events recorded by an {@link EventRecorder} back into an {@link EventQueue}. Each recorded event is
+ * processed in the same tick and in the same order relative to the other events as during the recording. Live input
+ * events are discarded while a replay is attached to an event queue, so the recording is the only source of input.
+ * <p>
+ * The replay is only deterministic if the tick durations are the same as during the recording. Run the engine with the
+ * property <tt>jeda.timer.mode</tt> set to <tt>virtual</tt> when replaying.
+ *
+ * @see EventQueue#setReplay(ch.jeda.event.EventReplay)
+ * @since 2.7
+ */
+public final class EventReplay {
+
+    private static final Button[] BUTTONS = Button.values();
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final Key[] KEYS = Key.values();
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+    private final ReplayConnection connection;
+    private final DataInputStream in;
+    private final List<Event> result;
+    private Event nextEvent;
+    private int nextPosition;
+    private int nextTick;
+
+    /**
+     * Constructs a new event replay that reads from the specified input stream.
+     *
+     * @param in the stream to read the recording from
+     * @throws IOException if the stream cannot be read or does not contain a recording
+     * @throws NullPointerException if <tt>in</tt> is <tt>null</tt>
+     *
+     * @since 2.7
+     */
+    public EventReplay(final InputStream in) throws IOException {
+        if (in == null) {
+            throw new NullPointerException("in");
+        }
+
+        connection = new ReplayConnection();
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        result = new ArrayList<Event>();
+        if (this.in.readInt() != EventLog.MAGIC) {
+            this.in.close();
+            throw new IOException("Stream does not contain an event recording.");
+        }
+
+        nextTick = 0;
+        readNext();
+    }
+
+    /**
+     * Checks if all recorded events have been replayed.
+     *
+     * @return <tt>true</tt> if all recorded events have been replayed, otherwise <tt>false</tt>
+     *
+     * @since 2.7
+     */
+    public synchronized boolean isFinished() {
+        return nextEvent == null;
+    }
+
+    synchronized void replay(final int tick, final List<Event> events) {
+        if (nextEvent == null) {
+            removeInput(events);
+            return;
+        }
+
+        result.clear();
+        int position = 0;
+        for (int i = 0; i < events.size(); ++i) {
+            final Event event = events.get(i);
+            if (!EventLog.isInput(event)) {
+                inject(tick, position);
+                result.add(event);
+                ++position;
+            }
+        }
+
+        inject(tick, Integer.MAX_VALUE);
+        events.clear();
+        events.addAll(result);
+        result.clear();
+    }
+
+    private void inject(final int tick, final int position) {
+        while (nextEvent != null && (nextTick < tick || (nextTick == tick && nextPosition <= position))) {
+            result.add(nextEvent);
+            readNext();
+        }
+    }
+
+    private void readNext() {
+        try {
+            nextTick = nextTick + EventLog.readVarInt(in);
+            nextPosition = EventLog.readVarInt(in);
+            nextEvent = readEvent();
+        }
+        catch (final EOFException ex) {
+            finish();
+        }
+        catch (final IOException ex) {
+            Log.e(ex, "Error while reading event recording.");
+            finish();
+        }
+    }
+
+    private Event readEvent() throws IOException {
+        final EventType type = lookup(EVENT_TYPES, in.readUnsignedByte(), "event type");
+        switch (type) {
+            case KEY_DOWN:
+            case KEY_TYPED:
+            case KEY_UP:
+                final Key key = lookup(KEYS, EventLog.readVarInt(in), "key");
+                final char keyChar = (char) EventLog.readVarInt(in);
+                final int repeatCount = EventLog.readVarInt(in);
+                if (key == Key.UNDEFINED && keyChar != '\0') {
+                    return new KeyEvent(this, type, keyChar);
+                }
+                else {
+                    return new KeyEvent(this, type, key, repeatCount);
+                }
+
+            case MESSAGE_RECEIVED:
+                return new MessageEvent(connection, in.readUTF());
+            case POINTER_DOWN:
+            case POINTER_MOVED:
+            case POINTER_UP:
+            case WHEEL:
+                final int pointerId = EventLog.readVarInt(in);
+                final int buttons = in.readUnsignedByte();
+                final EnumSet<Button> pressedButtons = EnumSet.noneOf(Button.class);
+                for (int i = 0; i < BUTTONS.length; ++i) {
+                    if ((buttons & (1 << i)) != 0) {
+                        pressedButtons.add(BUTTONS[i]);
+                    }
+                }
+
+                final float wheel = in.readFloat();
+                final float viewX = in.readFloat();
+                final float viewY = in.readFloat();
+                final float worldX = in.readFloat();
+                final float worldY = in.readFloat();
+                return new PointerEvent(this, type, pointerId, pressedButtons, wheel, viewX, viewY, worldX, worldY);
+            case SENSOR:
+                final SensorType sensorType = lookup(SENSOR_TYPES, in.readUnsignedByte(), "sensor type");
+                final boolean maximum = in.readBoolean();
+                final double value = in.readDouble();
+                final double x = in.readDouble();
+                final double y = in.readDouble();
+                final double z = in.readDouble();
+                if (x == 0.0 && y == 0.0 && z == 0.0) {
+                    return new SensorEvent(this, sensorType, maximum, value);
+                }
+                else {
+                    return new SensorEvent(this, sensorType, x, y, z);
+                }
+
+            default:
+                throw new IOException("Unexpected event type " + type + " in event recording.");
+        }
+    }
+
+    private void finish() {
+        nextEvent = null;
+        try {
+            in.close();
+        }
+        catch (final IOException ex) {
+            // ignore
+        }
+    }
+
+    /**
+     * Returns the constant with the specified ordinal. A recording that is corrupt or has been written by another
+     * version may contain ordinals that do not exist.
+     */
+    private static <T extends Enum<T>> T lookup(final T[] values, final int ordinal, final String name)
+        throws IOException {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Invalid " + name + " " + ordinal + " in event recording.");
+        }
+
+        return values[ordinal];
+    }
+
+    private static void removeInput(final List<Event> events) {
+        int j = 0;
+        for (int i = 0; i < events.size(); ++i) {
+            final Event event = events.get(i);
+            if (!EventLog.isInput(event)) {
+                events.set(j, event);
+                ++j;
+            }
+        }
+
+        while (events.size() > j) {
+            events.remove(events.size() - 1);
+        }
+    }
+
+    /**
+     * The connection of replayed message events. Lines sent to it are discarded.
+     */
+    private static final class ReplayConnection extends Connection {
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String getRemoteAddress() {
+            return "replay";
+        }
+
+        @Override
+        public boolean isOpen() {
+            return false;
+        }
+
+        @Override
+        public void sendLine(final String line) {
+        }
+    }
+}
@@ -20,7 +20,7 @@ package ch.jeda.event;
  * The types of events supported by Jeda.
  *
  * @since 1.0
- * @version 3
+ * @version 4
  */
 public enum EventType {
 
@@ -65,6 +65,13 @@ public enum EventType {
      * @since 1.0
      */
     KEY_UP,
+    /**
+     * A load progress event. This type of event occurs each time a {@link ch.jeda.Loader} has finished loading a
+     * resource.
+     *
+     * @since 2.7
+     */
+    LOAD_PROGRESS,
     /**
      * A message received event. This type of event occurs when a message is received via a connection.
      *
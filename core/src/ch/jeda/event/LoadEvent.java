@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.event;
+
+/**
+ * Represents an event of type {@link ch.jeda.event.EventType#LOAD_PROGRESS}.
+ *
+ * @since 2.7
+ */
+public final class LoadEvent extends Event {
+
+    private final int loadedCount;
+    private final String path;
+    private final int totalCount;
+
+    /**
+     * Constructs a new load progress event.
+     *
+     * @param source the loader that generates the event
+     * @param path the path of the resource that has been loaded
+     * @param loadedCount the number of resources that have been loaded so far
+     * @param totalCount the total number of resources requested from the loader
+     *
+     * @since 2.7
+     */
+    public LoadEvent(final Object source, final String path, final int loadedCount, final int totalCount) {
+        super(source, EventType.LOAD_PROGRESS);
+        this.loadedCount = loadedCount;
+        this.path = path;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Returns the number of resources that have been loaded so far.
+     *
+     * @return the number of resources that have been loaded so far
+     *
+     * @since 2.7
+     */
+    public int getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * Returns the path of the resource that has been loaded.
+     *
+     * @return the path of the resource that has been loaded
+     *
+     * @since 2.7
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the loading progress as a number between 0 and 1.
+     *
+     * @return the loading progress
+     *
+     * @since 2.7
+     */
+    public double getProgress() {
+        if (totalCount == 0) {
+            return 1.0;
+        }
+        else {
+            return (double) loadedCount / totalCount;
+        }
+    }
+
+    /**
+     * Returns the total number of resources that have been requested from the loader.
+     *
+     * @return the total number of resources
+     *
+     * @since 2.7
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Checks if all requested resources have been loaded.
+     *
+     * @return <tt>true</tt> if all requested resources have been loaded, otherwise <tt>false</tt>
+     *
+     * @since 2.7
+     */
+    public boolean isComplete() {
+        return loadedCount >= totalCount;
+    }
+}
@@ -535,7 +535,7 @@ public class Body extends Element {
             BodyImp detachedImp = new DetachedBodyImp(imp);
             detachedImp.setAngleRad((float) angle);
             imp.destroy();
-            imp = new PhysicsBodyImp(physics, this, detachedImp);
+            imp = createPhysicsImp(physics, detachedImp);
         }
     }
 
@@ -687,7 +687,7 @@ public class Body extends Element {
             BodyImp detachedImp = new DetachedBodyImp(imp);
             detachedImp.setPosition((float) x, (float) y);
             imp.destroy();
-            imp = new PhysicsBodyImp(physics, this, detachedImp);
+            imp = createPhysicsImp(physics, detachedImp);
         }
     }
 
@@ -858,11 +858,30 @@ public class Body extends Element {
             checkJoints();
         }
         else {
-            imp = new PhysicsBodyImp(physics, this, oldImp);
+            imp = createPhysicsImp(physics, oldImp);
             checkJoints();
         }
 
         oldImp.destroy();
         return true;
     }
+
+    /**
+     * Creates the imp for a body in a physics simulation. While the physics engine is locked, i.e. during a simulation
+     * step, no bodies can be created. In this case, the body stays detached until the step is complete.
+     */
+    private BodyImp createPhysicsImp(final Physics physics, final BodyImp oldImp) {
+        if (physics.isLocked()) {
+            physics.attachLater(this);
+            if (oldImp instanceof DetachedBodyImp) {
+                return oldImp;
+            }
+            else {
+                return new DetachedBodyImp(oldImp);
+            }
+        }
+        else {
+            return new PhysicsBodyImp(physics, this, oldImp);
+        }
+    }
 }
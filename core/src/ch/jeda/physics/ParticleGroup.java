@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import ch.jeda.geometry.Shape;
+import ch.jeda.ui.Canvas;
+import ch.jeda.ui.Color;
+import ch.jeda.ui.Element;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.particle.ParticleGroupDef;
+
+/**
+ * Represents a group of particles in a physics view. When the group is added to a {@link ch.jeda.physics.PhysicsView},
+ * the specified shape is filled with particles. The particles are simulated as a fluid or soft body, depending on the
+ * {@link ch.jeda.physics.ParticleType} of the group. When the group is removed from the view, its particles are
+ * destroyed.
+ *
+ * @since 2.7
+ */
+public class ParticleGroup extends Element {
+
+    private final Shape shape;
+    private final ParticleType type;
+    private Color color;
+    private org.jbox2d.particle.ParticleGroup imp;
+    private Physics physics;
+
+    /**
+     * Constructs a group of water particles filling the specified shape.
+     *
+     * @param shape the shape to fill with particles
+     * @throws NullPointerException if <code>shape</code> is <code>null</code>
+     *
+     * @since 2.7
+     */
+    public ParticleGroup(final Shape shape) {
+        this(shape, ParticleType.WATER);
+    }
+
+    /**
+     * Constructs a group of particles of the specified type filling the specified shape.
+     *
+     * @param shape the shape to fill with particles
+     * @param type the type of the particles
+     * @throws NullPointerException if <code>shape</code> or <code>type</code> is <code>null</code>
+     *
+     * @since 2.7
+     */
+    public ParticleGroup(final Shape shape, final ParticleType type) {
+        if (shape == null) {
+            throw new NullPointerException("shape");
+        }
+
+        if (type == null) {
+            throw new NullPointerException("type");
+        }
+
+        this.shape = shape;
+        this.type = type;
+        color = Color.BLUE;
+    }
+
+    @Override
+    public float getAngleRad() {
+        return 0f;
+    }
+
+    /**
+     * Returns the color used to draw the particles of this group.
+     *
+     * @return the color of the particles
+     *
+     * @see #setColor(ch.jeda.ui.Color)
+     * @since 2.7
+     */
+    public final Color getColor() {
+        return color;
+    }
+
+    /**
+     * Returns the number of particles in this group. Returns 0 if the group has not been added to a physics view.
+     *
+     * @return the number of particles in this group
+     *
+     * @since 2.7
+     */
+    public final int getParticleCount() {
+        if (imp == null) {
+            return 0;
+        }
+        else {
+            return imp.getParticleCount();
+        }
+    }
+
+    /**
+     * Returns the horizontal world coordinate of a particle of this group.
+     *
+     * @param index the index of the particle, between 0 and {@link #getParticleCount()} - 1
+     * @return the horizontal world coordinate of the particle
+     * @throws IndexOutOfBoundsException if <code>index</code> is not a valid particle index
+     *
+     * @since 2.7
+     */
+    public final float getParticleX(final int index) {
+        return getParticlePosition(index).x * physics.getScale();
+    }
+
+    /**
+     * Returns the vertical world coordinate of a particle of this group.
+     *
+     * @param index the index of the particle, between 0 and {@link #getParticleCount()} - 1
+     * @return the vertical world coordinate of the particle
+     * @throws IndexOutOfBoundsException if <code>index</code> is not a valid particle index
+     *
+     * @since 2.7
+     */
+    public final float getParticleY(final int index) {
+        return getParticlePosition(index).y * physics.getScale();
+    }
+
+    /**
+     * Returns the shape that is filled with particles when this group is added to a physics view.
+     *
+     * @return the shape of this group
+     *
+     * @since 2.7
+     */
+    public final Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Returns the type of the particles of this group.
+     *
+     * @return the type of the particles
+     *
+     * @since 2.7
+     */
+    public final ParticleType getType() {
+        return type;
+    }
+
+    /**
+     * Sets the color used to draw the particles of this group. Has no effect if <code>color</code> is
+     * <code>null</code>.
+     *
+     * @param color the color of the particles
+     *
+     * @see #getColor()
+     * @since 2.7
+     */
+    public final void setColor(final Color color) {
+        if (color != null) {
+            this.color = color;
+        }
+    }
+
+    /**
+     * Sets the velocity of all particles of this group. Has no effect if the group has not been added to a physics
+     * view.
+     *
+     * @param vx the horizontal velocity in meters per second
+     * @param vy the vertical velocity in meters per second
+     *
+     * @since 2.7
+     */
+    public final void setVelocity(final double vx, final double vy) {
+        if (imp == null) {
+            return;
+        }
+
+        final Vec2[] velocities = physics.getParticleVelocityBuffer();
+        final int end = imp.getBufferIndex() + imp.getParticleCount();
+        for (int i = imp.getBufferIndex(); i < end; ++i) {
+            velocities[i].x = (float) vx;
+            velocities[i].y = (float) vy;
+        }
+    }
+
+    @Override
+    protected void draw(final Canvas canvas) {
+        if (imp == null) {
+            return;
+        }
+
+        final Vec2[] positions = physics.getParticlePositionBuffer();
+        final float scale = physics.getScale();
+        final float radius = physics.getParticleRadius();
+        final float x = getX();
+        final float y = getY();
+        final int end = imp.getBufferIndex() + imp.getParticleCount();
+        canvas.setColor(color);
+        for (int i = imp.getBufferIndex(); i < end; ++i) {
+            canvas.fillCircle(positions[i].x * scale - x, positions[i].y * scale - y, radius);
+        }
+    }
+
+    final void setPhysics(final Physics physics) {
+        if (this.physics == physics) {
+            return;
+        }
+
+        if (imp != null) {
+            this.physics.destroyJBoxParticleGroup(imp);
+            imp = null;
+        }
+
+        this.physics = physics;
+        if (physics != null) {
+            final ParticleGroupDef groupDef = new ParticleGroupDef();
+            groupDef.flags = type.flags;
+            groupDef.shape = PhysicsBodyImp.convert(shape, physics.getScale());
+            groupDef.userData = this;
+            imp = physics.createJBoxParticleGroup(groupDef);
+        }
+    }
+
+    private Vec2 getParticlePosition(final int index) {
+        if (index < 0 || index >= getParticleCount()) {
+            throw new IndexOutOfBoundsException("index");
+        }
+
+        return physics.getParticlePositionBuffer()[imp.getBufferIndex() + index];
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents the behaviour of the particles in a {@link ch.jeda.physics.ParticleGroup}.
+ *
+ * @since 2.7
+ */
+public enum ParticleType {
+
+    /**
+     * Elastic particles. The particles deform, but try to restore the shape of the group.
+     *
+     * @since 2.7
+     */
+    ELASTIC(org.jbox2d.particle.ParticleType.b2_elasticParticle),
+    /**
+     * Powder particles. The particles do not produce pressure, they behave like sand.
+     *
+     * @since 2.7
+     */
+    POWDER(org.jbox2d.particle.ParticleType.b2_powderParticle),
+    /**
+     * Spring particles. Neighbouring particles are connected by springs.
+     *
+     * @since 2.7
+     */
+    SPRING(org.jbox2d.particle.ParticleType.b2_springParticle),
+    /**
+     * Tensile particles. The particles have surface tension.
+     *
+     * @since 2.7
+     */
+    TENSILE(org.jbox2d.particle.ParticleType.b2_tensileParticle),
+    /**
+     * Viscous particles. The particles behave like a viscous fluid, e.g. honey.
+     *
+     * @since 2.7
+     */
+    VISCOUS(org.jbox2d.particle.ParticleType.b2_viscousParticle),
+    /**
+     * Wall particles. The particles do not move.
+     *
+     * @since 2.7
+     */
+    WALL(org.jbox2d.particle.ParticleType.b2_wallParticle),
+    /**
+     * Water particles. The particles behave like a fluid.
+     *
+     * @since 2.7
+     */
+    WATER(org.jbox2d.particle.ParticleType.b2_waterParticle);
+
+    final int flags;
+
+    private ParticleType(final int flags) {
+        this.flags = flags;
+    }
+}
@@ -18,27 +18,48 @@ package ch.jeda.physics;
 
 import ch.jeda.Log;
 import ch.jeda.ui.Canvas;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.FixtureDef;
 import org.jbox2d.dynamics.World;
 import org.jbox2d.dynamics.joints.JointDef;
+import org.jbox2d.particle.ParticleGroupDef;
 
 final class Physics {
 
     private final Set<Body> bodySet;
+    private final Set<ParticleGroup> particleGroups;
     private final PhysicsDebugDraw debugDraw;
     private final org.jbox2d.dynamics.World imp;
+    private final PhysicsMetrics metrics;
+    private final PhysicsMetricsOverlay metricsOverlay;
+    private final List<Body> pendingAttachments;
+    private final List<org.jbox2d.dynamics.Body> pendingBodyDestructions;
+    private final List<PendingFixture> pendingFixtures;
+    private final List<org.jbox2d.dynamics.joints.Joint> pendingJointDestructions;
+    private final List<org.jbox2d.particle.ParticleGroup> pendingParticleGroupDestructions;
     private Body[] bodies;
     private boolean debugging;
     private float scale;
+    private boolean showingMetrics;
 
     public Physics() {
         bodySet = new HashSet<Body>();
+        particleGroups = new HashSet<ParticleGroup>();
         debugDraw = new PhysicsDebugDraw();
         imp = new World(new Vec2(0f, 0f));
+        metrics = new PhysicsMetrics();
+        metricsOverlay = new PhysicsMetricsOverlay(metrics);
+        pendingAttachments = new ArrayList<Body>();
+        pendingBodyDestructions = new ArrayList<org.jbox2d.dynamics.Body>();
+        pendingFixtures = new ArrayList<PendingFixture>();
+        pendingJointDestructions = new ArrayList<org.jbox2d.dynamics.joints.Joint>();
+        pendingParticleGroupDestructions = new ArrayList<org.jbox2d.particle.ParticleGroup>();
         imp.setDebugDraw(debugDraw);
         imp.setContactListener(new PhysicsContactListener());
         imp.setContactFilter(new PhysicsContactFilter());
@@ -47,6 +68,7 @@ final class Physics {
         bodies = null;
         debugging = false;
         scale = 100f;
+        showingMetrics = false;
     }
 
     public void add(final Body body) {
@@ -64,11 +86,38 @@ final class Physics {
         body.setPhysics(this);
     }
 
+    public void add(final ParticleGroup particleGroup) {
+        if (particleGroup != null && particleGroups.add(particleGroup)) {
+            particleGroup.setPhysics(this);
+        }
+    }
+
+    public void applyForces(final Body[] bodies, final float[] forces, final int count) {
+        checkBatch(bodies, forces, count);
+        for (int i = 0; i < count; ++i) {
+            if (bodies[i] != null) {
+                bodies[i].getImp().applyForce(forces[2 * i], forces[2 * i + 1]);
+            }
+        }
+    }
+
     public Body[] getBodies() {
         checkBodies();
         return Arrays.copyOf(bodies, bodies.length);
     }
 
+    public PhysicsMetrics getMetrics() {
+        return metrics;
+    }
+
+    public float getParticleRadius() {
+        return imp.getParticleRadius() * scale;
+    }
+
+    public int getParticleThreadCount() {
+        return imp.getParticleThreadCount();
+    }
+
     public float getScale() {
         return scale;
     }
@@ -77,6 +126,10 @@ final class Physics {
         return debugging;
     }
 
+    public boolean isShowingMetrics() {
+        return showingMetrics;
+    }
+
     public void remove(final Body body) {
         if (body == null || !bodySet.contains(body)) {
             return;
@@ -87,6 +140,12 @@ final class Physics {
         body.setPhysics(null);
     }
 
+    public void remove(final ParticleGroup particleGroup) {
+        if (particleGroup != null && particleGroups.remove(particleGroup)) {
+            particleGroup.setPhysics(null);
+        }
+    }
+
     public void setDebugging(final boolean debugging) {
         this.debugging = debugging;
     }
@@ -100,18 +159,45 @@ final class Physics {
         }
     }
 
+    public void setVelocities(final Body[] bodies, final float[] velocities, final int count) {
+        checkBatch(bodies, velocities, count);
+        for (int i = 0; i < count; ++i) {
+            if (bodies[i] != null) {
+                bodies[i].getImp().setVelocity(velocities[2 * i], velocities[2 * i + 1]);
+            }
+        }
+    }
+
+    public void setParticleRadius(final float radius) {
+        imp.setParticleRadius(radius / scale);
+    }
+
+    public void setParticleThreadCount(final int threadCount) {
+        imp.setParticleThreadCount(threadCount);
+    }
+
     public void setScale(final float scale) {
         this.scale = scale;
     }
 
+    public void setShowingMetrics(final boolean showingMetrics) {
+        this.showingMetrics = showingMetrics;
+    }
+
     public void step(final double seconds) {
         imp.step((float) seconds, 6, 2);
+        applyPendingChanges();
+        metrics.record(imp);
         checkBodies();
         for (final Body body : bodies) {
             body.checkJoints();
         }
     }
 
+    void attachLater(final Body body) {
+        pendingAttachments.add(body);
+    }
+
     org.jbox2d.dynamics.Body createJBoxBody(final BodyDef bodyDef) {
         if (imp.isLocked()) {
             Log.e("Cannot create body, physics Engine is locked!");
@@ -120,6 +206,15 @@ final class Physics {
         return imp.createBody(bodyDef);
     }
 
+    void createJBoxFixture(final PhysicsBodyImp bodyImp, final FixtureDef fixtureDef) {
+        if (imp.isLocked()) {
+            pendingFixtures.add(new PendingFixture(bodyImp, fixtureDef));
+        }
+        else {
+            bodyImp.getJBoxBody().createFixture(fixtureDef);
+        }
+    }
+
     org.jbox2d.dynamics.joints.Joint createJBoxJoint(final JointDef jointDef) {
         if (imp.isLocked()) {
             Log.e("Cannot create joint, physics Engine is locked!");
@@ -128,20 +223,39 @@ final class Physics {
         return imp.createJoint(jointDef);
     }
 
-    void destroyJBoxBody(final org.jbox2d.dynamics.Body jboxBody) {
+    org.jbox2d.particle.ParticleGroup createJBoxParticleGroup(final ParticleGroupDef groupDef) {
         if (imp.isLocked()) {
-            Log.e("Cannot destroy body, physics Engine is locked!");
+            Log.e("Cannot create particle group, physics Engine is locked!");
         }
 
-        imp.destroyBody(jboxBody);
+        return imp.createParticleGroup(groupDef);
+    }
+
+    void destroyJBoxBody(final org.jbox2d.dynamics.Body jboxBody) {
+        if (imp.isLocked()) {
+            pendingBodyDestructions.add(jboxBody);
+        }
+        else {
+            imp.destroyBody(jboxBody);
+        }
     }
 
     void destroyJBoxJoint(final org.jbox2d.dynamics.joints.Joint jboxJoint) {
         if (imp.isLocked()) {
-            Log.e("Cannot destroy joint, physics Engine is locked!");
+            pendingJointDestructions.add(jboxJoint);
         }
+        else {
+            imp.destroyJoint(jboxJoint);
+        }
+    }
 
-        imp.destroyJoint(jboxJoint);
+    void destroyJBoxParticleGroup(final org.jbox2d.particle.ParticleGroup jboxParticleGroup) {
+        if (imp.isLocked()) {
+            pendingParticleGroupDestructions.add(jboxParticleGroup);
+        }
+        else {
+            imp.destroyParticlesInGroup(jboxParticleGroup);
+        }
     }
 
     void drawDebugOverlay(final Canvas canvas) {
@@ -151,13 +265,110 @@ final class Physics {
         }
     }
 
+    Vec2[] getParticlePositionBuffer() {
+        return imp.getParticlePositionBuffer();
+    }
+
+    Vec2[] getParticleVelocityBuffer() {
+        return imp.getParticleVelocityBuffer();
+    }
+
+    void drawMetricsOverlay(final Canvas canvas) {
+        if (showingMetrics) {
+            metricsOverlay.draw(canvas);
+        }
+    }
+
+    boolean isLocked() {
+        return imp.isLocked();
+    }
+
     float scaleLength(final float length) {
         return (float) (length / scale);
     }
 
+    private static void checkBatch(final Body[] bodies, final float[] values, final int count) {
+        if (bodies == null) {
+            throw new NullPointerException("bodies");
+        }
+
+        if (values == null) {
+            throw new NullPointerException("values");
+        }
+
+        if (count < 0 || count > bodies.length || 2 * count > values.length) {
+            throw new IllegalArgumentException("count");
+        }
+    }
+
+    /**
+     * Applies all changes that have been requested while the world was locked during a simulation step. Joints are
+     * destroyed before bodies, since destroying a body also destroys its joints. Bodies that have been attached during
+     * the step are created in one go, so the body array is rebuilt only once.
+     */
+    private void applyPendingChanges() {
+        if (!pendingJointDestructions.isEmpty()) {
+            for (int i = 0; i < pendingJointDestructions.size(); ++i) {
+                imp.destroyJoint(pendingJointDestructions.get(i));
+            }
+
+            pendingJointDestructions.clear();
+        }
+
+        if (!pendingParticleGroupDestructions.isEmpty()) {
+            for (int i = 0; i < pendingParticleGroupDestructions.size(); ++i) {
+                imp.destroyParticlesInGroup(pendingParticleGroupDestructions.get(i));
+            }
+
+            pendingParticleGroupDestructions.clear();
+        }
+
+        if (!pendingBodyDestructions.isEmpty()) {
+            for (int i = 0; i < pendingBodyDestructions.size(); ++i) {
+                imp.destroyBody(pendingBodyDestructions.get(i));
+            }
+
+            pendingBodyDestructions.clear();
+        }
+
+        if (!pendingFixtures.isEmpty()) {
+            for (int i = 0; i < pendingFixtures.size(); ++i) {
+                final PendingFixture pending = pendingFixtures.get(i);
+                if (!pending.bodyImp.isDestroyed()) {
+                    pending.bodyImp.getJBoxBody().createFixture(pending.fixtureDef);
+                }
+            }
+
+            pendingFixtures.clear();
+        }
+
+        if (!pendingAttachments.isEmpty()) {
+            for (int i = 0; i < pendingAttachments.size(); ++i) {
+                final Body body = pendingAttachments.get(i);
+                if (bodySet.contains(body)) {
+                    body.setPhysics(this);
+                }
+            }
+
+            pendingAttachments.clear();
+            bodies = null;
+        }
+    }
+
     private void checkBodies() {
         if (bodies == null) {
             bodies = bodySet.toArray(new Body[bodySet.size()]);
         }
     }
+
+    private static final class PendingFixture {
+
+        final PhysicsBodyImp bodyImp;
+        final FixtureDef fixtureDef;
+
+        PendingFixture(final PhysicsBodyImp bodyImp, final FixtureDef fixtureDef) {
+            this.bodyImp = bodyImp;
+            this.fixtureDef = fixtureDef;
+        }
+    }
 }
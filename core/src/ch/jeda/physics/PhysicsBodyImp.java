@@ -28,6 +28,7 @@ import ch.jeda.ui.Canvas;
 import ch.jeda.ui.Color;
 import java.util.ArrayList;
 import java.util.List;
+import org.jbox2d.common.Transform;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.BodyDef;
 import org.jbox2d.dynamics.Fixture;
@@ -40,11 +41,13 @@ final class PhysicsBodyImp implements BodyImp {
     private final org.jbox2d.dynamics.Body imp;
     private final Physics physics;
     private final List<Shape> shapes;
+    private boolean destroyed;
 
     PhysicsBodyImp(final Physics physics, final Body body, final BodyImp oldImp) {
         density = oldImp.getDensity();
         friction = oldImp.getFriction();
         shapes = new ArrayList<Shape>();
+        destroyed = false;
         final BodyDef bodyDef = new BodyDef();
         bodyDef.angle = oldImp.getAngleRad();
         bodyDef.angularDamping = oldImp.getAngularDamping();
@@ -81,7 +84,7 @@ final class PhysicsBodyImp implements BodyImp {
         fixtureDef.shape = convert(sensor.getShape(), physics.getScale());
         fixtureDef.isSensor = true;
         fixtureDef.userData = sensor;
-        imp.createFixture(fixtureDef);
+        physics.createJBoxFixture(this, fixtureDef);
     }
 
     @Override
@@ -93,29 +96,33 @@ final class PhysicsBodyImp implements BodyImp {
         fixtureDef.density = density;
         fixtureDef.friction = friction;
         fixtureDef.userData = this;
-        imp.createFixture(fixtureDef);
+        physics.createJBoxFixture(this, fixtureDef);
     }
 
     @Override
     public void applyForce(final float fx, final float fy) {
-        imp.applyForce(new Vec2(fx, fy), imp.getWorldCenter());
+        imp.applyForceToCenter(fx, fy);
     }
 
     @Override
     public void applyForce(final float fx, final float fy, final float x, final float y) {
-        imp.applyForce(new Vec2(fx, fy), new Vec2(x, y));
+        imp.applyForce(fx, fy, x, y);
     }
 
     @Override
     public void applyLocalForceRad(final float force, float angle) {
         angle = angle + getAngleRad();
-        imp.applyForce(new Vec2(force * MathF.cos(angle), force * MathF.sin(angle)), imp.getWorldCenter());
+        imp.applyForceToCenter(force * MathF.cos(angle), force * MathF.sin(angle));
     }
 
     @Override
     public void applyLocalForceRad(final float force, float angle, final float x, final float y) {
         angle = angle + getAngleRad();
-        imp.applyForce(new Vec2(force * MathF.cos(angle), force * MathF.sin(angle)), imp.getWorldPoint(new Vec2(x, y)));
+        // Transform the local point to world coordinates without allocating vectors
+        final Transform xf = imp.getTransform();
+        final float px = xf.q.c * x - xf.q.s * y + xf.p.x;
+        final float py = xf.q.s * x + xf.q.c * y + xf.p.y;
+        imp.applyForce(force * MathF.cos(angle), force * MathF.sin(angle), px, py);
     }
 
     @Override
@@ -130,6 +137,7 @@ final class PhysicsBodyImp implements BodyImp {
 
     @Override
     public void destroy() {
+        destroyed = true;
         physics.destroyJBoxBody(imp);
     }
 
@@ -244,6 +252,10 @@ final class PhysicsBodyImp implements BodyImp {
         return imp.getPosition().y * physics.getScale();
     }
 
+    boolean isDestroyed() {
+        return destroyed;
+    }
+
     @Override
     public boolean isRotationFixed() {
         return imp.isFixedRotation();
@@ -316,7 +328,7 @@ final class PhysicsBodyImp implements BodyImp {
 
     @Override
     public void setVelocity(final float vx, final float vy) {
-        imp.setLinearVelocity(new Vec2(vx, vy));
+        imp.setLinearVelocity(vx, vy);
     }
 
     @Override
@@ -344,7 +356,7 @@ final class PhysicsBodyImp implements BodyImp {
         }
     }
 
-    private static org.jbox2d.collision.shapes.Shape convert(final Shape shape, final float scale) {
+    static org.jbox2d.collision.shapes.Shape convert(final Shape shape, final float scale) {
         if (shape instanceof Circle) {
             return convertCircle((Circle) shape, scale);
         }
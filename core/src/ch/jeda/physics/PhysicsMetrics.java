@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import java.util.Arrays;
+import org.jbox2d.dynamics.Profile;
+import org.jbox2d.dynamics.World;
+
+/**
+ * Provides performance metrics of the physics simulation of a {@link ch.jeda.physics.PhysicsView}. The metrics keep
+ * the durations of the phases of the most recent simulation steps, from which averages and percentiles are computed.
+ * The metrics are updated after each simulation step.
+ *
+ * @since 2.7
+ */
+public final class PhysicsMetrics {
+
+    private static final PhysicsPhase[] PHASES = PhysicsPhase.values();
+    private static final int WINDOW_SIZE = 120;
+    private final float[][] durations;
+    private final float[] sorted;
+    private int bodyCount;
+    private int contactCount;
+    private int jointCount;
+    private int next;
+    private int particleCount;
+    private int proxyCount;
+    private int sampleCount;
+
+    PhysicsMetrics() {
+        durations = new float[PHASES.length][WINDOW_SIZE];
+        sorted = new float[WINDOW_SIZE];
+    }
+
+    /**
+     * Returns the average duration of a simulation phase in milliseconds over the recent simulation steps.
+     *
+     * @param phase the simulation phase
+     * @return the average duration in milliseconds
+     * @throws NullPointerException if <code>phase</code> is <code>null</code>
+     *
+     * @since 2.7
+     */
+    public float getAverage(final PhysicsPhase phase) {
+        if (sampleCount == 0) {
+            return 0f;
+        }
+
+        final float[] values = durations[phase.ordinal()];
+        float sum = 0f;
+        for (int i = 0; i < sampleCount; ++i) {
+            sum = sum + values[i];
+        }
+
+        return sum / sampleCount;
+    }
+
+    /**
+     * Returns the number of bodies in the simulation.
+     *
+     * @return the number of bodies
+     *
+     * @since 2.7
+     */
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    /**
+     * Returns the number of contacts between bodies in the simulation. A contact exists for each pair of bodies whose
+     * bounding boxes overlap.
+     *
+     * @return the number of contacts
+     *
+     * @since 2.7
+     */
+    public int getContactCount() {
+        return contactCount;
+    }
+
+    /**
+     * Returns the number of joints in the simulation.
+     *
+     * @return the number of joints
+     *
+     * @since 2.7
+     */
+    public int getJointCount() {
+        return jointCount;
+    }
+
+    /**
+     * Returns the duration of a simulation phase in milliseconds during the last simulation step.
+     *
+     * @param phase the simulation phase
+     * @return the last duration in milliseconds
+     * @throws NullPointerException if <code>phase</code> is <code>null</code>
+     *
+     * @since 2.7
+     */
+    public float getLast(final PhysicsPhase phase) {
+        return getRecent(phase, 0);
+    }
+
+    /**
+     * Returns the maximum duration of a simulation phase in milliseconds over the recent simulation steps.
+     *
+     * @param phase the simulation phase
+     * @return the maximum duration in milliseconds
+     * @throws NullPointerException if <code>phase</code> is <code>null</code>
+     *
+     * @since 2.7
+     */
+    public float getMax(final PhysicsPhase phase) {
+        final float[] values = durations[phase.ordinal()];
+        float result = 0f;
+        for (int i = 0; i < sampleCount; ++i) {
+            result = Math.max(result, values[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of particles in the simulation.
+     *
+     * @return the number of particles
+     *
+     * @since 2.7
+     */
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    /**
+     * Returns a percentile of the duration of a simulation phase in milliseconds over the recent simulation steps. For
+     * example, <code>getPercentile(PhysicsPhase.STEP, 95)</code> returns the duration that 95 percent of the recent
+     * simulation steps did not exceed.
+     *
+     * @param phase the simulation phase
+     * @param percentile the percentile between 0 and 100
+     * @return the percentile of the duration in milliseconds
+     * @throws NullPointerException if <code>phase</code> is <code>null</code>
+     *
+     * @since 2.7
+     */
+    public float getPercentile(final PhysicsPhase phase, final double percentile) {
+        if (sampleCount == 0) {
+            return 0f;
+        }
+
+        System.arraycopy(durations[phase.ordinal()], 0, sorted, 0, sampleCount);
+        Arrays.sort(sorted, 0, sampleCount);
+        final double p = Math.max(0.0, Math.min(percentile, 100.0));
+        final int index = (int) Math.ceil(p / 100.0 * sampleCount) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * Returns the number of broad-phase proxies in the simulation. Each shape of a body has at least one proxy.
+     *
+     * @return the number of broad-phase proxies
+     *
+     * @since 2.7
+     */
+    public int getProxyCount() {
+        return proxyCount;
+    }
+
+    /**
+     * Returns the number of recent simulation steps the averages and percentiles are computed from.
+     *
+     * @return the number of recent simulation steps
+     *
+     * @since 2.7
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Returns the duration of a simulation phase <code>age</code> steps ago, 0 being the last step. Returns 0 if no
+     * such step has been recorded.
+     */
+    float getRecent(final PhysicsPhase phase, final int age) {
+        if (age >= sampleCount) {
+            return 0f;
+        }
+
+        return durations[phase.ordinal()][(next - 1 - age + WINDOW_SIZE) % WINDOW_SIZE];
+    }
+
+    int getWindowSize() {
+        return WINDOW_SIZE;
+    }
+
+    void record(final World world) {
+        final Profile profile = world.getProfile();
+        for (int i = 0; i < PHASES.length; ++i) {
+            durations[i][next] = PHASES[i].getProfileEntry(profile).getLast();
+        }
+
+        next = (next + 1) % WINDOW_SIZE;
+        sampleCount = Math.min(sampleCount + 1, WINDOW_SIZE);
+        bodyCount = world.getBodyCount();
+        contactCount = world.getContactCount();
+        jointCount = world.getJointCount();
+        particleCount = world.getParticleCount();
+        proxyCount = world.getProxyCount();
+    }
+}
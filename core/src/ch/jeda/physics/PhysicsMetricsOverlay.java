@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import ch.jeda.ui.Alignment;
+import ch.jeda.ui.Canvas;
+import ch.jeda.ui.Color;
+import ch.jeda.ui.Typeface;
+import java.util.Arrays;
+
+class PhysicsMetricsOverlay {
+
+    private static final Color BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Color GRAPH = new Color(255, 200, 0);
+    private static final float GRAPH_HEIGHT = 60f;
+    private static final float LINE_HEIGHT = 14f;
+    private static final float MARGIN = 5f;
+    private static final PhysicsPhase[] PHASES = {PhysicsPhase.STEP, PhysicsPhase.COLLIDE, PhysicsPhase.SOLVE,
+                                                  PhysicsPhase.SOLVE_TOI, PhysicsPhase.BROADPHASE,
+                                                  PhysicsPhase.PARTICLES};
+    private static final float TEXT_SIZE = 12f;
+    private static final float WIDTH = 260f;
+    private final PhysicsMetrics metrics;
+    private final float[] points;
+
+    PhysicsMetricsOverlay(final PhysicsMetrics metrics) {
+        this.metrics = metrics;
+        points = new float[2 * metrics.getWindowSize()];
+    }
+
+    void draw(final Canvas canvas) {
+        final float height = (PHASES.length + 2) * LINE_HEIGHT + GRAPH_HEIGHT + 3 * MARGIN;
+        final float left = MARGIN;
+        final float top = canvas.getHeight() - MARGIN;
+        canvas.setAlignment(Alignment.TOP_LEFT);
+        canvas.setOpacity(255);
+        canvas.setColor(BACKGROUND);
+        canvas.fillRectangle(left, top, WIDTH, height);
+
+        canvas.setColor(Color.WHITE);
+        canvas.setTextSize(TEXT_SIZE);
+        canvas.setTypeface(Typeface.MONSPACED);
+        float y = top - MARGIN;
+        canvas.drawText(left + MARGIN, y, "phase            avg   p95   max");
+        for (int i = 0; i < PHASES.length; ++i) {
+            y = y - LINE_HEIGHT;
+            final PhysicsPhase phase = PHASES[i];
+            canvas.drawText(left + MARGIN, y, String.format("%-14s %5.2f %5.2f %5.2f", phase,
+                                                            metrics.getAverage(phase),
+                                                            metrics.getPercentile(phase, 95),
+                                                            metrics.getMax(phase)));
+        }
+
+        y = y - LINE_HEIGHT;
+        canvas.drawText(left + MARGIN, y, String.format("bodies %d contacts %d proxies %d", metrics.getBodyCount(),
+                                                        metrics.getContactCount(), metrics.getProxyCount()));
+
+        // Graph of the step durations, newest step on the right
+        final float bottom = top - height + MARGIN;
+        final float max = Math.max(1f, metrics.getMax(PhysicsPhase.STEP));
+        final int count = metrics.getSampleCount();
+        if (count > 1) {
+            final float dx = (WIDTH - 2 * MARGIN) / (metrics.getWindowSize() - 1);
+            final float right = left + WIDTH - MARGIN;
+            for (int i = 0; i < count; ++i) {
+                points[2 * i] = right - i * dx;
+                points[2 * i + 1] = bottom + GRAPH_HEIGHT * metrics.getRecent(PhysicsPhase.STEP, i) / max;
+            }
+
+            canvas.setColor(GRAPH);
+            canvas.setLineWidth(1f);
+            if (count == metrics.getWindowSize()) {
+                canvas.drawPolyline(points);
+            }
+            else {
+                canvas.drawPolyline(Arrays.copyOf(points, 2 * count));
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents a phase of a physics simulation step. The duration of each phase is measured by the physics engine and
+ * can be queried through {@link ch.jeda.physics.PhysicsMetrics}.
+ *
+ * @since 2.7
+ */
+public enum PhysicsPhase {
+
+    /**
+     * Updating the broad-phase after the bodies have been moved.
+     *
+     * @since 2.7
+     */
+    BROADPHASE("broadphase"),
+    /**
+     * Finding and updating the contacts between bodies.
+     *
+     * @since 2.7
+     */
+    COLLIDE("collide"),
+    /**
+     * Simulating the particles of the particle groups.
+     *
+     * @since 2.7
+     */
+    PARTICLES("particles"),
+    /**
+     * Solving the velocity and position constraints of bodies and joints, including {@link #SOLVE_INIT},
+     * {@link #SOLVE_VELOCITY}, {@link #SOLVE_POSITION} and {@link #BROADPHASE}.
+     *
+     * @since 2.7
+     */
+    SOLVE("solve"),
+    /**
+     * Setting up the solver islands.
+     *
+     * @since 2.7
+     */
+    SOLVE_INIT("solve init"),
+    /**
+     * Solving the position constraints.
+     *
+     * @since 2.7
+     */
+    SOLVE_POSITION("solve position"),
+    /**
+     * Solving the time of impact of fast moving bodies.
+     *
+     * @since 2.7
+     */
+    SOLVE_TOI("solve TOI"),
+    /**
+     * Solving the velocity constraints.
+     *
+     * @since 2.7
+     */
+    SOLVE_VELOCITY("solve velocity"),
+    /**
+     * The whole simulation step.
+     *
+     * @since 2.7
+     */
+    STEP("step"),
+    /**
+     * Preparing the simulation step, e.g. creating contacts for new fixtures.
+     *
+     * @since 2.7
+     */
+    STEP_INIT("step init");
+
+    private final String label;
+
+    private PhysicsPhase(final String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    org.jbox2d.dynamics.Profile.ProfileEntry getProfileEntry(final org.jbox2d.dynamics.Profile profile) {
+        switch (this) {
+            case BROADPHASE:
+                return profile.broadphase;
+            case COLLIDE:
+                return profile.collide;
+            case PARTICLES:
+                return profile.solveParticleSystem;
+            case SOLVE:
+                return profile.solve;
+            case SOLVE_INIT:
+                return profile.solveInit;
+            case SOLVE_POSITION:
+                return profile.solvePosition;
+            case SOLVE_TOI:
+                return profile.solveTOI;
+            case SOLVE_VELOCITY:
+                return profile.solveVelocity;
+            case STEP:
+                return profile.step;
+            case STEP_INIT:
+                return profile.stepInit;
+            default:
+                return null;
+        }
+    }
+}
@@ -25,7 +25,7 @@ import ch.jeda.ui.ViewFeature;
  * A view with an integraged physics simulation.
  *
  * @since 2.0
- * @version 2
+ * @version 3
  */
 public final class PhysicsView extends View {
 
@@ -94,6 +94,79 @@ public final class PhysicsView extends View {
         addEventListener(this);
     }
 
+    /**
+     * Applies forces to the centers of mass of many bodies at once. The unit of the forces is Newton. The forces are
+     * specified as pairs of horizontal and vertical components, i.e. the force (<code>forces[2*i]</code>,
+     * <code>forces[2*i+1]</code>) is applied to <code>bodies[i]</code>. Elements of <code>bodies</code> that are
+     * <code>null</code> are skipped. Use this method to apply forces to many bodies in each step without creating
+     * garbage.
+     *
+     * @param bodies the bodies to apply the forces to
+     * @param forces the horizontal and vertical components of the forces in Newton
+     * @throws NullPointerException if <code>bodies</code> or <code>forces</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>forces</code> has less than two elements per body
+     *
+     * @since 2.7
+     */
+    public final void applyForces(final Body[] bodies, final float[] forces) {
+        physics.applyForces(bodies, forces, bodies == null ? 0 : bodies.length);
+    }
+
+    /**
+     * Applies forces to the centers of mass of the first <code>count</code> bodies of an array. See
+     * {@link #applyForces(ch.jeda.physics.Body[], float[])}. Use this method to reuse arrays when the number of
+     * bodies changes.
+     *
+     * @param bodies the bodies to apply the forces to
+     * @param forces the horizontal and vertical components of the forces in Newton
+     * @param count the number of bodies to apply forces to
+     * @throws NullPointerException if <code>bodies</code> or <code>forces</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>count</code> is negative, larger than the length of
+     * <code>bodies</code> or <code>forces</code> has less than two elements per body
+     *
+     * @since 2.7
+     */
+    public final void applyForces(final Body[] bodies, final float[] forces, final int count) {
+        physics.applyForces(bodies, forces, count);
+    }
+
+    /**
+     * Returns the performance metrics of the physics simulation of this view. The returned object is updated after
+     * each simulation step.
+     *
+     * @return the performance metrics of the physics simulation
+     *
+     * @see #setShowingMetrics(boolean)
+     * @since 2.7
+     */
+    public final PhysicsMetrics getMetrics() {
+        return physics.getMetrics();
+    }
+
+    /**
+     * Returns the radius of the particles of all particle groups in this view.
+     *
+     * @return the particle radius in meters
+     *
+     * @see #setParticleRadius(double)
+     * @since 2.7
+     */
+    public final float getParticleRadius() {
+        return physics.getParticleRadius();
+    }
+
+    /**
+     * Returns the number of threads used to simulate particles.
+     *
+     * @return the number of threads used to simulate particles
+     *
+     * @see #setParticleThreadCount(int)
+     * @since 2.7
+     */
+    public final int getParticleThreadCount() {
+        return physics.getParticleThreadCount();
+    }
+
     /**
      * Checks if the debugging mode is enabled.
      *
@@ -106,6 +179,18 @@ public final class PhysicsView extends View {
         return physics.isDebugging();
     }
 
+    /**
+     * Checks if the performance metrics overlay is shown.
+     *
+     * @return <tt>true</tt>, if the performance metrics overlay is shown, otherwise <tt>false</tt>
+     *
+     * @see #setShowingMetrics(boolean)
+     * @since 2.7
+     */
+    public final boolean isShowingMetrics() {
+        return physics.isShowingMetrics();
+    }
+
     /**
      * Enables or disabled the debugging mode of the physics view. In debugging mode, the view displays an overlay for
      * bodies showing shapes and similar information.
@@ -131,6 +216,87 @@ public final class PhysicsView extends View {
         physics.setGravity(ax, ay);
     }
 
+    /**
+     * Sets the radius of the particles of all particle groups in this view. The radius should be set before any
+     * particle group is added to the view.
+     *
+     * @param radius the particle radius in meters
+     *
+     * @see #getParticleRadius()
+     * @since 2.7
+     */
+    public final void setParticleRadius(final double radius) {
+        physics.setParticleRadius((float) radius);
+    }
+
+    /**
+     * Sets the number of threads used to simulate particles. By default, one thread per available processor is used.
+     * Small particle systems are always simulated on a single thread.
+     *
+     * @param threadCount the number of threads used to simulate particles
+     *
+     * @see #getParticleThreadCount()
+     * @since 2.7
+     */
+    public final void setParticleThreadCount(final int threadCount) {
+        physics.setParticleThreadCount(threadCount);
+    }
+
+    /**
+     * Shows or hides the performance metrics overlay. The overlay shows the durations of the simulation phases, the
+     * number of bodies, contacts and proxies as well as a graph of the recent simulation step durations.
+     *
+     * @param showingMetrics show or hide the performance metrics overlay
+     *
+     * @see #getMetrics()
+     * @see #isShowingMetrics()
+     * @since 2.7
+     */
+    public final void setShowingMetrics(final boolean showingMetrics) {
+        physics.setShowingMetrics(showingMetrics);
+    }
+
+    /**
+     * Sets the velocities of many bodies at once. The velocities are specified as pairs of horizontal and vertical
+     * components in meters per second, i.e. the velocity of <code>bodies[i]</code> is set to
+     * (<code>velocities[2*i]</code>, <code>velocities[2*i+1]</code>). Elements of <code>bodies</code> that are
+     * <code>null</code> are skipped.
+     *
+     * @param bodies the bodies to set the velocities of
+     * @param velocities the horizontal and vertical components of the velocities in meters per second
+     * @throws NullPointerException if <code>bodies</code> or <code>velocities</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>velocities</code> has less than two elements per body
+     *
+     * @since 2.7
+     */
+    public final void setVelocities(final Body[] bodies, final float[] velocities) {
+        physics.setVelocities(bodies, velocities, bodies == null ? 0 : bodies.length);
+    }
+
+    /**
+     * Sets the velocities of the first <code>count</code> bodies of an array. See
+     * {@link #setVelocities(ch.jeda.physics.Body[], float[])}.
+     *
+     * @param bodies the bodies to set the velocities of
+     * @param velocities the horizontal and vertical components of the velocities in meters per second
+     * @param count the number of bodies to set the velocities of
+     * @throws NullPointerException if <code>bodies</code> or <code>velocities</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>count</code> is negative, larger than the length of
+     * <code>bodies</code> or <code>velocities</code> has less than two elements per body
+     *
+     * @since 2.7
+     */
+    public final void setVelocities(final Body[] bodies, final float[] velocities, final int count) {
+        physics.setVelocities(bodies, velocities, count);
+    }
+
+    @Override
+    protected void drawOverlay(final Canvas canvas) {
+        if (physics != null) {
+            physics.drawMetricsOverlay(canvas);
+        }
+    }
+
     @Override
     protected void drawWorldOverlay(final Canvas canvas) {
         // May be called while physics is not initialized yet because the View subscribes to tick events
@@ -145,6 +311,9 @@ public final class PhysicsView extends View {
         if (element instanceof Body) {
             physics.add((Body) element);
         }
+        else if (element instanceof ParticleGroup) {
+            physics.add((ParticleGroup) element);
+        }
     }
 
     @Override
@@ -152,6 +321,9 @@ public final class PhysicsView extends View {
         if (element instanceof Body) {
             physics.remove((Body) element);
         }
+        else if (element instanceof ParticleGroup) {
+            physics.remove((ParticleGroup) element);
+        }
     }
 
     @Override
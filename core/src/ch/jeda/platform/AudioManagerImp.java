@@ -21,6 +21,8 @@ package ch.jeda.platform;
  */
 public interface AudioManagerImp {
 
+    int getVoiceCount();
+
     boolean isSoundAvailable(String path);
 
     void loadSound(String path);
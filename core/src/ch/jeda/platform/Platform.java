@@ -70,6 +70,12 @@ public interface Platform {
 
     void shutdown();
 
+    /**
+     * Called once after the platform has been constructed and before the engine starts. Platforms start background
+     * work here rather than in the constructor.
+     */
+    void start();
+
     void writeln(final String message);
 
     interface Callback {
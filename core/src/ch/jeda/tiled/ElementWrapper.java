@@ -31,7 +31,7 @@ final class ElementWrapper {
     private final List<ElementWrapper> children;
     private final Map<String, List<ElementWrapper>> childrenByName;
     private final String localName;
-    private String content;
+    private StringBuilder content;
 
     ElementWrapper(final String localName, final Attributes attributes) {
         this.attributes = new Data();
@@ -54,6 +54,18 @@ final class ElementWrapper {
         childrenByName.get(name).add(element);
     }
 
+    /**
+     * Appends character data. The XML parser may report the content of an element in several chunks, for example the
+     * data of a large tile layer.
+     */
+    void appendContent(final char[] ch, final int start, final int length) {
+        if (content == null) {
+            content = new StringBuilder(length);
+        }
+
+        content.append(ch, start, length);
+    }
+
     boolean getBooleanAttribute(final String name, final boolean defaultValue) {
         final String value = attributes.readString(name);
         if (value == null) {
@@ -123,7 +135,12 @@ final class ElementWrapper {
     }
 
     public String getContent() {
-        return content;
+        if (content == null) {
+            return null;
+        }
+        else {
+            return content.toString();
+        }
     }
 
     String getLocalName() {
@@ -158,8 +175,4 @@ final class ElementWrapper {
 
         return result;
     }
-
-    void setContent(final String content) {
-        this.content = content;
-    }
 }
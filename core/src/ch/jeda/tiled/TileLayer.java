@@ -28,6 +28,8 @@ import ch.jeda.ui.Image;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 
@@ -35,22 +37,17 @@ import java.util.zip.InflaterInputStream;
  * Represents a Tiled tile layer.
  *
  * @since 2.0
- * @version 2
+ * @version 3
  */
 public final class TileLayer extends Layer {
 
-    private final Tile[] tiles;
+    private static final String TILE_COUNT_MISMATCH = "Number of tiles does not match the layer's width and height";
+    // Global tile ids as stored by Tiled, including the flip flags in the highest bits. Tiles are looked up on demand.
+    private final int[] globalIds;
 
     TileLayer(final TiledMap map, final ElementWrapper element) {
         super(map, element);
-        // Read tile ids
-        final int width = map.getWidth();
-        final int height = map.getHeight();
-        final long[] tileIds = parseData(element.getChild(Const.DATA), width, height);
-        tiles = new Tile[width * height];
-        for (int i = 0; i < tileIds.length; ++i) {
-            tiles[i] = map.lookupTile(tileIds[i]);
-        }
+        globalIds = parseData(element.getChild(Const.DATA), map.getWidth(), map.getHeight());
     }
 
     /**
@@ -89,8 +86,8 @@ public final class TileLayer extends Layer {
     @Override
     public Tile getTile(final int x, final int y) {
         final int index = x + y * getMap().getWidth();
-        if (0 <= index && index < tiles.length && tiles[index] != null) {
-            return tiles[index];
+        if (0 <= index && index < globalIds.length && globalIds[index] != 0) {
+            return getMap().lookupTile(globalIds[index] & 0xffffffffL);
         }
 
         return null;
@@ -155,7 +152,7 @@ public final class TileLayer extends Layer {
         }
     }
 
-    private static long[] parseData(final ElementWrapper element, final int width, final int height) {
+    private static int[] parseData(final ElementWrapper element, final int width, final int height) {
         final String encoding = element.getStringAttribute(Const.ENCODING);
         if (Const.BASE64.equalsIgnoreCase(encoding)) {
             return parseBase64(element, width, height);
@@ -164,10 +161,10 @@ public final class TileLayer extends Layer {
             return parseCsv(element.getContent(), width, height);
         }
         else {
-            final long[] result = new long[width * height];
+            final int[] result = new int[width * height];
             int i = 0;
             for (final ElementWrapper tileElement : element.getChildren(Const.TILE)) {
-                result[i] = tileElement.getLongAttribute(Const.GID);
+                result[i] = (int) tileElement.getLongAttribute(Const.GID);
                 ++i;
             }
 
@@ -175,32 +172,28 @@ public final class TileLayer extends Layer {
         }
     }
 
-    private static long[] parseBase64(final ElementWrapper element, final int width, final int height) {
+    private static int[] parseBase64(final ElementWrapper element, final int width, final int height) {
         final String compression = element.getStringAttribute(Const.COMPRESSION);
+        final byte[] decoded = Convert.fromBase64(element.getContent());
+        final int[] result = new int[width * height];
         try {
-            InputStream in = new ByteArrayInputStream(Convert.fromBase64(element.getContent()));
+            byte[] data = decoded;
             if (Const.GZIP.equalsIgnoreCase(compression)) {
-                in = new GZIPInputStream(in);
+                data = inflate(new GZIPInputStream(new ByteArrayInputStream(decoded)), 4 * result.length);
             }
             else if (Const.ZLIB.equalsIgnoreCase(compression)) {
-                in = new InflaterInputStream(in);
+                data = inflate(new InflaterInputStream(new ByteArrayInputStream(decoded)), 4 * result.length);
             }
             else if (compression != null && !compression.isEmpty()) {
                 throw new RuntimeException("Unknown compression method: " + compression);
             }
 
-            final long[] result = new long[width * height];
-            for (int y = 0; y < height; ++y) {
-                for (int x = 0; x < width; ++x) {
-                    long tileId = 0;
-                    tileId |= in.read();
-                    tileId |= in.read() << 8;
-                    tileId |= in.read() << 16;
-                    tileId |= in.read() << 24;
-                    result[x + y * width] = tileId;
-                }
+            if (data.length < 4 * result.length) {
+                throw new RuntimeException(TILE_COUNT_MISMATCH);
             }
 
+            // Tiled stores the ids as little-endian unsigned 32 bit integers
+            ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(result);
             return result;
         }
         catch (final IOException ex) {
@@ -208,19 +201,67 @@ public final class TileLayer extends Layer {
         }
     }
 
-    private static long[] parseCsv(final String data, final int width, final int height) {
-        final String[] csvTileIds = data.trim().split("[\\s]*,[\\s]*");
-        if (csvTileIds.length != width * height) {
-            throw new RuntimeException("Number of tiles does not match the layer's width and height");
-        }
+    private static int[] parseCsv(final String data, final int width, final int height) {
+        final int[] result = new int[width * height];
+        final int length = data.length();
+        int count = 0;
+        int pos = 0;
+        while (pos < length) {
+            char ch = data.charAt(pos);
+            if (ch == ',' || Character.isWhitespace(ch)) {
+                ++pos;
+                continue;
+            }
+
+            if (ch < '0' || ch > '9') {
+                throw new RuntimeException("Invalid character '" + ch + "' in CSV tile data at position " + pos + ".");
+            }
 
-        final long[] result = new long[width * height];
-        for (int y = 0; y < height; ++y) {
-            for (int x = 0; x < width; ++x) {
-                result[x + y * width] = Long.parseLong(csvTileIds[x + y * width]);
+            if (count == result.length) {
+                throw new RuntimeException(TILE_COUNT_MISMATCH);
             }
+
+            // Global ids are unsigned 32 bit integers, so accumulate in a long and keep the lower 32 bits.
+            long value = 0;
+            while (ch >= '0' && ch <= '9') {
+                value = 10 * value + (ch - '0');
+                ++pos;
+                ch = pos < length ? data.charAt(pos) : ',';
+            }
+
+            result[count] = (int) value;
+            ++count;
+        }
+
+        if (count != result.length) {
+            throw new RuntimeException(TILE_COUNT_MISMATCH);
         }
 
         return result;
     }
+
+    /**
+     * Reads up to <code>length</code> bytes in bulk. The returned array is shorter if the stream ends early.
+     */
+    private static byte[] inflate(final InputStream in, final int length) throws IOException {
+        try {
+            final byte[] result = new byte[length];
+            int pos = 0;
+            while (pos < length) {
+                final int count = in.read(result, pos, length - pos);
+                if (count == -1) {
+                    final byte[] truncated = new byte[pos];
+                    System.arraycopy(result, 0, truncated, 0, pos);
+                    return truncated;
+                }
+
+                pos = pos + count;
+            }
+
+            return result;
+        }
+        finally {
+            in.close();
+        }
+    }
 }
@@ -16,6 +16,7 @@
  */
 package ch.jeda.tiled;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -25,9 +26,11 @@ final class TileSets {
     private static final int FLIP_VERTICALLY_FLAG = 0x40000000;
     private static final int FLIP_DIAGONALLY_FLAG = 0x20000000;
     private static final int FLAGS = FLIP_HORIZONTALLY_FLAG | FLIP_VERTICALLY_FLAG | FLIP_DIAGONALLY_FLAG;
+    private final Map<Integer, Tile> flippedTiles;
     private final TreeMap<Integer, TileSet> tileSetsByGid;
 
     TileSets() {
+        flippedTiles = new HashMap<Integer, Tile>();
         tileSetsByGid = new TreeMap<Integer, TileSet>();
     }
 
@@ -35,21 +38,30 @@ final class TileSets {
         tileSetsByGid.put(tileSet.getFirstGlobalId(), tileSet);
     }
 
-    Tile lookupTile(final long globalId) {
-        long flags = globalId & FLAGS;
-        int id = (int) (globalId & ~FLAGS);
-        Map.Entry< Integer, TileSet> entry = tileSetsByGid.floorEntry(id);
+    Tile lookupTile(final int globalId) {
+        final int flags = globalId & FLAGS;
+        final int id = globalId & ~FLAGS;
+        final Map.Entry< Integer, TileSet> entry = tileSetsByGid.floorEntry(id);
         if (entry == null) {
             return null;
         }
 
-        Tile tile = entry.getValue().getTile(id - entry.getKey());
-        if (flags != 0) {
-            tile = new ProxyTile(tile,
-                                 (flags & FLIP_HORIZONTALLY_FLAG) != 0,
-                                 (flags & FLIP_VERTICALLY_FLAG) != 0);
+        final Tile tile = entry.getValue().getTile(id - entry.getKey());
+        if (flags == 0 || tile == null) {
+            return tile;
         }
 
-        return tile;
+        // Tile layers look up tiles on demand, so share the flipped copy instead of flipping the image every time.
+        synchronized (flippedTiles) {
+            Tile result = flippedTiles.get(globalId);
+            if (result == null) {
+                result = new ProxyTile(tile,
+                                       (flags & FLIP_HORIZONTALLY_FLAG) != 0,
+                                       (flags & FLIP_VERTICALLY_FLAG) != 0);
+                flippedTiles.put(globalId, result);
+            }
+
+            return result;
+        }
     }
 }
@@ -18,6 +18,7 @@ package ch.jeda.tiled;
 
 import ch.jeda.Data;
 import ch.jeda.Jeda;
+import ch.jeda.JedaInternal;
 import ch.jeda.physics.PhysicsView;
 import ch.jeda.ui.Color;
 import java.util.ArrayList;
@@ -73,17 +74,35 @@ public final class TiledMap {
         width = element.getIntAttribute(Const.WIDTH);
         orientation = parseOrientation(element.getStringAttribute(Const.ORIENTATION));
         properties = element.parsePropertiesChild();
-        // Read tile sets
-        tileSets = new TileSets();
+        // Read tile set elements
+        final List<ElementWrapper> tileSetElements = new ArrayList<ElementWrapper>();
         for (final ElementWrapper tileSetElement : element.getChildren(Const.TILESET)) {
             if (tileSetElement.hasAttribute(Const.SOURCE)) {
-                tileSets.add(new TileSet(this, reader.read(tileSetElement.getStringAttribute(Const.SOURCE)), reader));
+                tileSetElements.add(reader.read(tileSetElement.getStringAttribute(Const.SOURCE)));
             }
             else {
-                tileSets.add(new TileSet(this, tileSetElement, reader));
+                tileSetElements.add(tileSetElement);
             }
         }
 
+        // Load all images of the tile sets and image layers in parallel. The images are cached, so the tile sets and
+        // layers constructed below do not need to decode them again.
+        final List<String> imagePaths = new ArrayList<String>();
+        for (final ElementWrapper tileSetElement : tileSetElements) {
+            reader.collectImagePaths(tileSetElement, imagePaths);
+        }
+
+        for (final ElementWrapper layerElement : element.getChildren("imagelayer")) {
+            reader.collectImagePaths(layerElement, imagePaths);
+        }
+
+        JedaInternal.loadImages(imagePaths.toArray(new String[imagePaths.size()]));
+        // Read tile sets
+        tileSets = new TileSets();
+        for (final ElementWrapper tileSetElement : tileSetElements) {
+            tileSets.add(new TileSet(this, tileSetElement, reader));
+        }
+
         // Read layers
         final List<Layer> layerList = new ArrayList<Layer>();
         for (final ElementWrapper layerElement : element.getChildren()) {
@@ -233,7 +252,7 @@ public final class TiledMap {
      * @since 2.0
      */
     public Tile lookupTile(final long globalId) {
-        return tileSets.lookupTile(globalId);
+        return tileSets.lookupTile((int) globalId);
     }
 
     private static Orientation parseOrientation(final String value) {
@@ -71,7 +71,7 @@ final class XmlContentHandler implements ContentHandler {
 
     @Override
     public void characters(final char[] ch, final int start, final int length) throws SAXException {
-        elementStack.peek().setContent(new String(ch, start, length));
+        elementStack.peek().appendContent(ch, start, length);
     }
 
     @Override
@@ -20,6 +20,7 @@ import ch.jeda.JedaInternal;
 import ch.jeda.Log;
 import ch.jeda.ui.Image;
 import java.io.IOException;
+import java.util.List;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
@@ -32,6 +33,16 @@ class XmlReader {
         this.prefix = prefix;
     }
 
+    /**
+     * Adds the paths of the images referenced by an element and by its tile children to a list.
+     */
+    void collectImagePaths(final ElementWrapper element, final List<String> result) {
+        addImagePath(element, result);
+        for (final ElementWrapper tileElement : element.getChildren(Const.TILE)) {
+            addImagePath(tileElement, result);
+        }
+    }
+
     ElementWrapper read(final String path) {
         try {
             final XMLReader xmlReader = JedaInternal.createXmlReader();
@@ -66,4 +77,14 @@ class XmlReader {
             return null;
         }
     }
+
+    private void addImagePath(final ElementWrapper element, final List<String> result) {
+        final ElementWrapper imageElement = element.getChild(Const.IMAGE);
+        if (imageElement != null) {
+            final String source = imageElement.getStringAttribute(Const.SOURCE);
+            if (source != null) {
+                result.add(prefix + source);
+            }
+        }
+    }
 }
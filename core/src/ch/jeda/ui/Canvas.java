@@ -50,7 +50,7 @@ import java.util.EnumMap;
  * canvas.fillCircle(200, 150, 100);</code></pre>
  *
  * @since 1.0
- * @version 5
+ * @version 6
  */
 public class Canvas {
 
@@ -64,6 +64,7 @@ public class Canvas {
     private final float canvasToDevice;
     private final float deviceToCanvas;
     private final float pixelsY;
+    private final PointBuffer pointBuffer;
     private CanvasImp imp;
     private Alignment alignment;
     private boolean antiAliasing;
@@ -102,6 +103,7 @@ public class Canvas {
         canvasToDevice = dpi / 160f;
         deviceToCanvas = 160f / dpi;
         pixelsY = imp.getHeight();
+        pointBuffer = new PointBuffer();
         // Default drawing properties
         alignment = DEFAULT_ALIGNMENT;
         antiAliasing = true;
@@ -201,6 +203,29 @@ public class Canvas {
         }
     }
 
+    /**
+     * Draws several circles. The circles are drawn using the current color and line width. The circles are defined by
+     * a sequence of triples containing the center coordinates and the radius of each circle. Only the first
+     * <code>count</code> circles are drawn, so the same array can be reused for a varying number of circles. Circles
+     * with a non-positive radius are skipped.
+     *
+     * @param circles the circles as sequence of (x, y, radius) triples
+     * @param count the number of circles to draw
+     * @throws NullPointerException if <code>circles</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>count</code> is negative or <code>circles</code> is too short
+     *
+     * @since 2.7
+     */
+    public void drawCircles(final float[] circles, final int count) {
+        checkBatch(circles, "circles", count, 3);
+        for (int i = 0; i < 3 * count; i = i + 3) {
+            final float radius = circles[i + 2];
+            if (radius > 0f) {
+                imp.drawEllipse(circles[i] * sx + tx, circles[i + 1] * sy + ty, radius * slx, radius * sly);
+            }
+        }
+    }
+
     /**
      * Draws an ellipse. The ellipse is drawn using the current color and line width. Has no effect if the specified
      * radii are not positive.
@@ -364,6 +389,30 @@ public class Canvas {
         drawPolyline(x1, y1, x2, y2);
     }
 
+    /**
+     * Draws several straight lines. The lines are drawn using the current color and line width. The lines are defined
+     * by a sequence of quadruples containing the coordinates of the start and end point of each line. Only the first
+     * <code>count</code> lines are drawn, so the same array can be reused for a varying number of lines.
+     *
+     * @param lines the lines as sequence of (x1, y1, x2, y2) quadruples
+     * @param count the number of lines to draw
+     * @throws NullPointerException if <code>lines</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>count</code> is negative or <code>lines</code> is too short
+     *
+     * @since 2.7
+     */
+    public void drawLines(final float[] lines, final int count) {
+        checkBatch(lines, "lines", count, 4);
+        final float[] points = pointBuffer.get(4);
+        for (int i = 0; i < 4 * count; i = i + 4) {
+            points[0] = lines[i] * sx + tx;
+            points[1] = lines[i + 1] * sy + ty;
+            points[2] = lines[i + 2] * sx + tx;
+            points[3] = lines[i + 3] * sy + ty;
+            imp.drawPolyline(points);
+        }
+    }
+
     /**
      * Draws a polygon. The polygon is drawn using the current color and line width. The polygon is defined by a
      * sequence of coordinate pairs specifiying the corners of the polygon. For example, the code
@@ -478,6 +527,31 @@ public class Canvas {
         }
     }
 
+    /**
+     * Draws several rectangles. The rectangles are drawn using the current alignment, color, and line width. The
+     * rectangles are defined by a sequence of quadruples containing the coordinates, the width, and the height of each
+     * rectangle. Only the first <code>count</code> rectangles are drawn, so the same array can be reused for a varying
+     * number of rectangles. Rectangles with a non-positive width or height are skipped.
+     *
+     * @param rectangles the rectangles as sequence of (x, y, width, height) quadruples
+     * @param count the number of rectangles to draw
+     * @throws NullPointerException if <code>rectangles</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>count</code> is negative or <code>rectangles</code> is too short
+     *
+     * @since 2.7
+     */
+    public void drawRectangles(final float[] rectangles, final int count) {
+        checkBatch(rectangles, "rectangles", count, 4);
+        for (int i = 0; i < 4 * count; i = i + 4) {
+            final float width = rectangles[i + 2] * slx;
+            final float height = rectangles[i + 3] * sly;
+            if (width > 0f && height > 0f) {
+                imp.drawRectangle(alignX(rectangles[i] * sx + tx, width), alignY(rectangles[i + 1] * sy + ty, height),
+                                  width, height);
+            }
+        }
+    }
+
     /**
      * Draws a shadow around a circle.
      *
@@ -625,6 +699,29 @@ public class Canvas {
         }
     }
 
+    /**
+     * Draws several filled circles. The circles are drawn using the current color. The circles are defined by a
+     * sequence of triples containing the center coordinates and the radius of each circle. Only the first
+     * <code>count</code> circles are drawn, so the same array can be reused for a varying number of circles. Circles
+     * with a non-positive radius are skipped.
+     *
+     * @param circles the circles as sequence of (x, y, radius) triples
+     * @param count the number of circles to draw
+     * @throws NullPointerException if <code>circles</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>count</code> is negative or <code>circles</code> is too short
+     *
+     * @since 2.7
+     */
+    public void fillCircles(final float[] circles, final int count) {
+        checkBatch(circles, "circles", count, 3);
+        for (int i = 0; i < 3 * count; i = i + 3) {
+            final float radius = circles[i + 2];
+            if (radius > 0f) {
+                imp.fillEllipse(circles[i] * sx + tx, circles[i + 1] * sy + ty, radius * slx, radius * sly);
+            }
+        }
+    }
+
     /**
      * Draws a filled ellipse. The ellipse is drawn using the current color. Has no effect if the specified radii are
      * not positive.
@@ -744,6 +841,31 @@ public class Canvas {
         }
     }
 
+    /**
+     * Draws several filled rectangles. The rectangles are drawn using the current alignment and color. The rectangles
+     * are defined by a sequence of quadruples containing the coordinates, the width, and the height of each rectangle.
+     * Only the first <code>count</code> rectangles are drawn, so the same array can be reused for a varying number of
+     * rectangles. Rectangles with a non-positive width or height are skipped.
+     *
+     * @param rectangles the rectangles as sequence of (x, y, width, height) quadruples
+     * @param count the number of rectangles to draw
+     * @throws NullPointerException if <code>rectangles</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>count</code> is negative or <code>rectangles</code> is too short
+     *
+     * @since 2.7
+     */
+    public void fillRectangles(final float[] rectangles, final int count) {
+        checkBatch(rectangles, "rectangles", count, 4);
+        for (int i = 0; i < 4 * count; i = i + 4) {
+            final float width = rectangles[i + 2] * slx;
+            final float height = rectangles[i + 3] * sly;
+            if (width > 0f && height > 0f) {
+                imp.fillRectangle(alignX(rectangles[i] * sx + tx, width), alignY(rectangles[i + 1] * sy + ty, height),
+                                  width, height);
+            }
+        }
+    }
+
     /**
      * Returns the current alignment.
      *
@@ -1136,8 +1258,18 @@ public class Canvas {
         imp.resetTransformation();
     }
 
+    private static void checkBatch(final float[] values, final String name, final int count, final int stride) {
+        if (values == null) {
+            throw new NullPointerException(name);
+        }
+
+        if (count < 0 || (long) count * stride > values.length) {
+            throw new IllegalArgumentException("count");
+        }
+    }
+
     private float[] convertPoints(double[] values) {
-        final float[] result = new float[values.length];
+        final float[] result = pointBuffer.get(values.length);
         for (int i = 0; i < values.length; i = i + 2) {
             result[i] = (float) values[i] * sx + tx;
             result[i + 1] = (float) values[i + 1] * sy + ty;
@@ -1147,7 +1279,7 @@ public class Canvas {
     }
 
     private float[] convertPoints(float[] values) {
-        final float[] result = new float[values.length];
+        final float[] result = pointBuffer.get(values.length);
         for (int i = 0; i < values.length; i = i + 2) {
             result[i] = values[i] * sx + tx;
             result[i + 1] = values[i + 1] * sy + ty;
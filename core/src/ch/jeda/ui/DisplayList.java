@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.ui;
+
+import ch.jeda.platform.CanvasImp;
+import ch.jeda.platform.ImageImp;
+import ch.jeda.platform.TypefaceImp;
+
+/**
+ * A recorded sequence of drawing commands for canvas implementations. Opcodes and integer arguments are stored in one
+ * <tt>int</tt> array, floating point arguments in a <tt>float</tt> array and references in an object array, so
+ * recording a command does not allocate once the arrays have grown large enough. The commands are executed in order
+ * by {@link #replay()}.
+ */
+final class DisplayList {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int DRAW_CANVAS = 0;
+    private static final int DRAW_ELLIPSE = 1;
+    private static final int DRAW_IMAGE = 2;
+    private static final int DRAW_POLYGON = 3;
+    private static final int DRAW_POLYLINE = 4;
+    private static final int DRAW_RECTANGLE = 5;
+    private static final int DRAW_TEXT = 6;
+    private static final int FILL = 7;
+    private static final int FILL_ELLIPSE = 8;
+    private static final int FILL_POLYGON = 9;
+    private static final int FILL_RECTANGLE = 10;
+    private static final int RESET_TRANSFORMATION = 11;
+    private static final int ROTATE_RAD = 12;
+    private static final int SET_ANTI_ALIASING = 13;
+    private static final int SET_COLOR = 14;
+    private static final int SET_LINE_WIDTH = 15;
+    private static final int SET_PIXEL = 16;
+    private static final int SET_TARGET = 17;
+    private static final int SET_TEXT_SIZE = 18;
+    private static final int SET_TYPEFACE = 19;
+    private static final int TRANSLATE = 20;
+    private final PointBuffer pointBuffer;
+    private float[] floats;
+    private int floatCount;
+    private int[] ints;
+    private int intCount;
+    private Object[] objects;
+    private int objectCount;
+    private CanvasImp target;
+
+    DisplayList() {
+        floats = new float[INITIAL_CAPACITY];
+        ints = new int[INITIAL_CAPACITY];
+        objects = new Object[INITIAL_CAPACITY];
+        pointBuffer = new PointBuffer();
+    }
+
+    /**
+     * Removes all commands. References to recorded objects are released.
+     */
+    void clear() {
+        for (int i = 0; i < objectCount; ++i) {
+            objects[i] = null;
+        }
+
+        floatCount = 0;
+        intCount = 0;
+        objectCount = 0;
+        target = null;
+    }
+
+    boolean isEmpty() {
+        return intCount == 0;
+    }
+
+    void drawCanvas(final CanvasImp imp, final float x, final float y, final CanvasImp source, final int opacity) {
+        op(imp, DRAW_CANVAS);
+        addFloat(x);
+        addFloat(y);
+        addObject(source);
+        addInt(opacity);
+    }
+
+    void drawEllipse(final CanvasImp imp, final float centerX, final float centerY, final float radiusX,
+                     final float radiusY) {
+        op(imp, DRAW_ELLIPSE);
+        addFloats(centerX, centerY, radiusX, radiusY);
+    }
+
+    void drawImage(final CanvasImp imp, final float x, final float y, final float width, final float height,
+                   final ImageImp image, final int opacity) {
+        op(imp, DRAW_IMAGE);
+        addFloats(x, y, width, height);
+        addObject(image);
+        addInt(opacity);
+    }
+
+    void drawPolygon(final CanvasImp imp, final float[] points) {
+        op(imp, DRAW_POLYGON);
+        addPoints(points);
+    }
+
+    void drawPolyline(final CanvasImp imp, final float[] points) {
+        op(imp, DRAW_POLYLINE);
+        addPoints(points);
+    }
+
+    void drawRectangle(final CanvasImp imp, final float x, final float y, final float width, final float height) {
+        op(imp, DRAW_RECTANGLE);
+        addFloats(x, y, width, height);
+    }
+
+    void drawText(final CanvasImp imp, final float x, final float y, final String text) {
+        op(imp, DRAW_TEXT);
+        addFloat(x);
+        addFloat(y);
+        addObject(text);
+    }
+
+    void fill(final CanvasImp imp) {
+        op(imp, FILL);
+    }
+
+    void fillEllipse(final CanvasImp imp, final float centerX, final float centerY, final float radiusX,
+                     final float radiusY) {
+        op(imp, FILL_ELLIPSE);
+        addFloats(centerX, centerY, radiusX, radiusY);
+    }
+
+    void fillPolygon(final CanvasImp imp, final float[] points) {
+        op(imp, FILL_POLYGON);
+        addPoints(points);
+    }
+
+    void fillRectangle(final CanvasImp imp, final float x, final float y, final float width, final float height) {
+        op(imp, FILL_RECTANGLE);
+        addFloats(x, y, width, height);
+    }
+
+    void resetTransformation(final CanvasImp imp) {
+        op(imp, RESET_TRANSFORMATION);
+    }
+
+    void rotateRad(final CanvasImp imp, final float angle, final float centerX, final float centerY) {
+        op(imp, ROTATE_RAD);
+        addFloat(angle);
+        addFloat(centerX);
+        addFloat(centerY);
+    }
+
+    void setAntiAliasing(final CanvasImp imp, final boolean antiAliasing) {
+        op(imp, SET_ANTI_ALIASING);
+        addInt(antiAliasing ? 1 : 0);
+    }
+
+    void setColor(final CanvasImp imp, final Color color) {
+        op(imp, SET_COLOR);
+        addObject(color);
+    }
+
+    void setLineWidth(final CanvasImp imp, final float lineWidth) {
+        op(imp, SET_LINE_WIDTH);
+        addFloat(lineWidth);
+    }
+
+    void setPixel(final CanvasImp imp, final int x, final int y, final Color color) {
+        op(imp, SET_PIXEL);
+        addInt(x);
+        addInt(y);
+        addObject(color);
+    }
+
+    void setTextSize(final CanvasImp imp, final float textSize) {
+        op(imp, SET_TEXT_SIZE);
+        addFloat(textSize);
+    }
+
+    void setTypeface(final CanvasImp imp, final TypefaceImp typeface) {
+        op(imp, SET_TYPEFACE);
+        addObject(typeface);
+    }
+
+    void translate(final CanvasImp imp, final float tx, final float ty) {
+        op(imp, TRANSLATE);
+        addFloat(tx);
+        addFloat(ty);
+    }
+
+    /**
+     * Executes all recorded commands in order.
+     */
+    void replay() {
+        CanvasImp imp = null;
+        int f = 0;
+        int i = 0;
+        int o = 0;
+        while (i < intCount) {
+            switch (ints[i++]) {
+                case DRAW_CANVAS:
+                    imp.drawCanvas(floats[f], floats[f + 1], (CanvasImp) objects[o++], ints[i++]);
+                    f = f + 2;
+                    break;
+                case DRAW_ELLIPSE:
+                    imp.drawEllipse(floats[f], floats[f + 1], floats[f + 2], floats[f + 3]);
+                    f = f + 4;
+                    break;
+                case DRAW_IMAGE:
+                    imp.drawImage(floats[f], floats[f + 1], floats[f + 2], floats[f + 3], (ImageImp) objects[o++],
+                                  ints[i++]);
+                    f = f + 4;
+                    break;
+                case DRAW_POLYGON:
+                    f = f + ints[i];
+                    imp.drawPolygon(points(f, ints[i++]));
+                    break;
+                case DRAW_POLYLINE:
+                    f = f + ints[i];
+                    imp.drawPolyline(points(f, ints[i++]));
+                    break;
+                case DRAW_RECTANGLE:
+                    imp.drawRectangle(floats[f], floats[f + 1], floats[f + 2], floats[f + 3]);
+                    f = f + 4;
+                    break;
+                case DRAW_TEXT:
+                    imp.drawText(floats[f], floats[f + 1], (String) objects[o++]);
+                    f = f + 2;
+                    break;
+                case FILL:
+                    imp.fill();
+                    break;
+                case FILL_ELLIPSE:
+                    imp.fillEllipse(floats[f], floats[f + 1], floats[f + 2], floats[f + 3]);
+                    f = f + 4;
+                    break;
+                case FILL_POLYGON:
+                    f = f + ints[i];
+                    imp.fillPolygon(points(f, ints[i++]));
+                    break;
+                case FILL_RECTANGLE:
+                    imp.fillRectangle(floats[f], floats[f + 1], floats[f + 2], floats[f + 3]);
+                    f = f + 4;
+                    break;
+                case RESET_TRANSFORMATION:
+                    imp.resetTransformation();
+                    break;
+                case ROTATE_RAD:
+                    imp.rotateRad(floats[f], floats[f + 1], floats[f + 2]);
+                    f = f + 3;
+                    break;
+                case SET_ANTI_ALIASING:
+                    imp.setAntiAliasing(ints[i++] != 0);
+                    break;
+                case SET_COLOR:
+                    imp.setColor((Color) objects[o++]);
+                    break;
+                case SET_LINE_WIDTH:
+                    imp.setLineWidth(floats[f++]);
+                    break;
+                case SET_PIXEL:
+                    imp.setPixel(ints[i], ints[i + 1], (Color) objects[o++]);
+                    i = i + 2;
+                    break;
+                case SET_TARGET:
+                    imp = (CanvasImp) objects[o++];
+                    break;
+                case SET_TEXT_SIZE:
+                    imp.setTextSize(floats[f++]);
+                    break;
+                case SET_TYPEFACE:
+                    imp.setTypeface((TypefaceImp) objects[o++]);
+                    break;
+                case TRANSLATE:
+                    imp.translate(floats[f], floats[f + 1]);
+                    f = f + 2;
+                    break;
+            }
+        }
+    }
+
+    private void addFloat(final float value) {
+        if (floatCount == floats.length) {
+            floats = grow(floats, floatCount + 1);
+        }
+
+        floats[floatCount] = value;
+        ++floatCount;
+    }
+
+    private void addFloats(final float a, final float b, final float c, final float d) {
+        if (floatCount + 4 > floats.length) {
+            floats = grow(floats, floatCount + 4);
+        }
+
+        floats[floatCount] = a;
+        floats[floatCount + 1] = b;
+        floats[floatCount + 2] = c;
+        floats[floatCount + 3] = d;
+        floatCount = floatCount + 4;
+    }
+
+    private void addInt(final int value) {
+        if (intCount == ints.length) {
+            final int[] result = new int[ints.length * 2];
+            System.arraycopy(ints, 0, result, 0, intCount);
+            ints = result;
+        }
+
+        ints[intCount] = value;
+        ++intCount;
+    }
+
+    private void addObject(final Object value) {
+        if (objectCount == objects.length) {
+            final Object[] result = new Object[objects.length * 2];
+            System.arraycopy(objects, 0, result, 0, objectCount);
+            objects = result;
+        }
+
+        objects[objectCount] = value;
+        ++objectCount;
+    }
+
+    /**
+     * Copies the points, since the caller may reuse the array after recording.
+     */
+    private void addPoints(final float[] points) {
+        addInt(points.length);
+        if (floatCount + points.length > floats.length) {
+            floats = grow(floats, floatCount + points.length);
+        }
+
+        System.arraycopy(points, 0, floats, floatCount, points.length);
+        floatCount = floatCount + points.length;
+    }
+
+    private void op(final CanvasImp imp, final int opcode) {
+        if (imp != target) {
+            addInt(SET_TARGET);
+            addObject(imp);
+            target = imp;
+        }
+
+        addInt(opcode);
+    }
+
+    /**
+     * Returns the <tt>length</tt> floats ending at <tt>end</tt> in a reused buffer of exactly that length. The buffer
+     * is only valid until the next points of the same length are replayed, so canvas implementations must not keep it.
+     */
+    private float[] points(final int end, final int length) {
+        final float[] result = pointBuffer.get(length);
+        System.arraycopy(floats, end - length, result, 0, length);
+        return result;
+    }
+
+    private static float[] grow(final float[] array, final int minCapacity) {
+        final float[] result = new float[Math.max(array.length * 2, minCapacity)];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.ui;
+
+import ch.jeda.JedaInternal;
+import ch.jeda.platform.CanvasImp;
+import ch.jeda.platform.FontMetrics;
+import ch.jeda.platform.ImageImp;
+import ch.jeda.platform.TypefaceImp;
+
+/**
+ * A canvas implementation that records drawing commands into the display list of a {@link Renderer} instead of
+ * executing them. Text is measured on a small canvas of its own that follows the text settings, so measuring does not
+ * wait for the render thread. Reading pixels waits until all recorded commands have been executed.
+ */
+final class DisplayListCanvasImp implements CanvasImp {
+
+    private final CanvasImp imp;
+    private final CanvasImp measureImp;
+    private final Renderer renderer;
+
+    DisplayListCanvasImp(final CanvasImp imp, final Renderer renderer) {
+        this.imp = imp;
+        measureImp = JedaInternal.createCanvasImp(1, 1);
+        this.renderer = renderer;
+    }
+
+    @Override
+    public void drawCanvas(final float x, final float y, final CanvasImp source, final int opacity) {
+        if (source instanceof DisplayListCanvasImp) {
+            renderer.getDisplayList().drawCanvas(imp, x, y, ((DisplayListCanvasImp) source).imp, opacity);
+        }
+        else {
+            // The source canvas may be changed as soon as this method returns, so it must be copied right now.
+            renderer.sync();
+            imp.drawCanvas(x, y, source, opacity);
+        }
+    }
+
+    @Override
+    public void drawEllipse(final float centerX, final float centerY, final float radiusX, final float radiusY) {
+        renderer.getDisplayList().drawEllipse(imp, centerX, centerY, radiusX, radiusY);
+    }
+
+    @Override
+    public void drawImage(final float x, final float y, final float width, final float height, final ImageImp image,
+                          final int opacity) {
+        renderer.getDisplayList().drawImage(imp, x, y, width, height, image, opacity);
+    }
+
+    @Override
+    public void drawPolygon(final float[] points) {
+        renderer.getDisplayList().drawPolygon(imp, points);
+    }
+
+    @Override
+    public void drawPolyline(final float[] points) {
+        renderer.getDisplayList().drawPolyline(imp, points);
+    }
+
+    @Override
+    public void drawRectangle(final float x, final float y, final float width, final float height) {
+        renderer.getDisplayList().drawRectangle(imp, x, y, width, height);
+    }
+
+    @Override
+    public void drawText(final float x, final float y, final String text) {
+        renderer.getDisplayList().drawText(imp, x, y, text);
+    }
+
+    @Override
+    public void fill() {
+        renderer.getDisplayList().fill(imp);
+    }
+
+    @Override
+    public void fillEllipse(final float centerX, final float centerY, final float radiusX, final float radiusY) {
+        renderer.getDisplayList().fillEllipse(imp, centerX, centerY, radiusX, radiusY);
+    }
+
+    @Override
+    public void fillPolygon(final float[] points) {
+        renderer.getDisplayList().fillPolygon(imp, points);
+    }
+
+    @Override
+    public void fillRectangle(final float x, final float y, final float width, final float height) {
+        renderer.getDisplayList().fillRectangle(imp, x, y, width, height);
+    }
+
+    @Override
+    public FontMetrics getFontMetrics() {
+        return measureImp.getFontMetrics();
+    }
+
+    @Override
+    public int getHeight() {
+        return imp.getHeight();
+    }
+
+    @Override
+    public Color getPixel(final int x, final int y) {
+        renderer.sync();
+        return imp.getPixel(x, y);
+    }
+
+    @Override
+    public int getWidth() {
+        return imp.getWidth();
+    }
+
+    @Override
+    public int measureLength(final String text, final TypefaceImp typeface, final float textSize) {
+        return measureImp.measureLength(text, typeface, textSize);
+    }
+
+    @Override
+    public void resetTransformation() {
+        renderer.getDisplayList().resetTransformation(imp);
+    }
+
+    @Override
+    public void rotateRad(final float angle, final float centerX, final float centerY) {
+        renderer.getDisplayList().rotateRad(imp, angle, centerX, centerY);
+    }
+
+    @Override
+    public void setAntiAliasing(final boolean antiAliasing) {
+        measureImp.setAntiAliasing(antiAliasing);
+        renderer.getDisplayList().setAntiAliasing(imp, antiAliasing);
+    }
+
+    @Override
+    public void setColor(final Color color) {
+        renderer.getDisplayList().setColor(imp, color);
+    }
+
+    @Override
+    public void setLineWidth(final float lineWidth) {
+        renderer.getDisplayList().setLineWidth(imp, lineWidth);
+    }
+
+    @Override
+    public void setPixel(final int x, final int y, final Color color) {
+        renderer.getDisplayList().setPixel(imp, x, y, color);
+    }
+
+    @Override
+    public void setTextSize(final float textSize) {
+        measureImp.setTextSize(textSize);
+        renderer.getDisplayList().setTextSize(imp, textSize);
+    }
+
+    @Override
+    public void setTypeface(final TypefaceImp typeface) {
+        measureImp.setTypeface(typeface);
+        renderer.getDisplayList().setTypeface(imp, typeface);
+    }
+
+    @Override
+    public ImageImp takeSnapshot(final int x, final int y, final int width, final int height) {
+        renderer.sync();
+        return imp.takeSnapshot(x, y, width, height);
+    }
+
+    @Override
+    public void translate(final float tx, final float ty) {
+        renderer.getDisplayList().translate(imp, tx, ty);
+    }
+}
@@ -16,8 +16,6 @@
  */
 package ch.jeda.ui;
 
-import java.util.Comparator;
-
 /**
  * Base class for objects with a graphical representation. Elements can be added to a {@link ch.jeda.ui.View}. The view
  * will automatically draw the elements. Every element has a <b>draw order</b> that determines the order in which the
@@ -30,7 +28,6 @@ import java.util.Comparator;
  */
 public abstract class Element {
 
-    static final Comparator<Element> DRAW_ORDER = new DrawOrder();
     private static final int DEFAULT_DRAW_ORDER = -1;
     private float angle;
     private int drawOrder;
@@ -321,12 +318,4 @@ public abstract class Element {
             this.view = null;
         }
     }
-
-    private static class DrawOrder implements Comparator<Element> {
-
-        @Override
-        public int compare(final Element object1, final Element object2) {
-            return object1.drawOrder - object2.drawOrder;
-        }
-    }
 }
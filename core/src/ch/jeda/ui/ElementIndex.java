@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.ui;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the elements of a view in one list per element type. An element is listed under its class and under all its
+ * superclasses and interfaces that are element types, so the elements of a type can be found without looking at the
+ * other elements. The elements of a type are kept in the order they have been added.
+ */
+class ElementIndex {
+
+    private static final Element[] NO_ELEMENTS = new Element[0];
+    private final Map<Class<?>, Bucket> buckets;
+    private final Map<Class<?>, Class<?>[]> typesByClass;
+
+    ElementIndex() {
+        buckets = new HashMap<Class<?>, Bucket>();
+        typesByClass = new HashMap<Class<?>, Class<?>[]>();
+    }
+
+    void add(final Element element) {
+        final Class<?>[] types = typesOf(element.getClass());
+        for (int i = 0; i < types.length; ++i) {
+            Bucket bucket = buckets.get(types[i]);
+            if (bucket == null) {
+                bucket = new Bucket();
+                buckets.put(types[i], bucket);
+            }
+
+            bucket.add(element);
+        }
+    }
+
+    int count(final Class<?> type) {
+        final Bucket bucket = buckets.get(type);
+        if (bucket == null) {
+            return 0;
+        }
+        else {
+            return bucket.size;
+        }
+    }
+
+    Element get(final Class<?> type, final int index) {
+        final Bucket bucket = buckets.get(type);
+        if (bucket == null || index < 0 || index >= bucket.size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+
+        return bucket.elements[index];
+    }
+
+    void remove(final Element element) {
+        final Class<?>[] types = typesOf(element.getClass());
+        for (int i = 0; i < types.length; ++i) {
+            final Bucket bucket = buckets.get(types[i]);
+            if (bucket != null) {
+                bucket.remove(element);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends Element> T[] toArray(final Class<T> type) {
+        final Bucket bucket = buckets.get(type);
+        final int size = bucket == null ? 0 : bucket.size;
+        // Unchecked cast
+        final T[] result = (T[]) Array.newInstance(type, size);
+        if (size > 0) {
+            System.arraycopy(bucket.elements, 0, result, 0, size);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the class itself and all its superclasses and interfaces that are subtypes of Element.
+     */
+    private Class<?>[] typesOf(final Class<?> clazz) {
+        Class<?>[] result = typesByClass.get(clazz);
+        if (result == null) {
+            final List<Class<?>> types = new ArrayList<Class<?>>();
+            collectTypes(clazz, types);
+            result = types.toArray(new Class<?>[types.size()]);
+            typesByClass.put(clazz, result);
+        }
+
+        return result;
+    }
+
+    private static void collectTypes(final Class<?> type, final List<Class<?>> result) {
+        if (type == null || !Element.class.isAssignableFrom(type) || result.contains(type)) {
+            return;
+        }
+
+        result.add(type);
+        collectTypes(type.getSuperclass(), result);
+        final Class<?>[] interfaces = type.getInterfaces();
+        for (int i = 0; i < interfaces.length; ++i) {
+            collectTypes(interfaces[i], result);
+        }
+    }
+
+    private static class Bucket {
+
+        private Element[] elements;
+        private int size;
+
+        Bucket() {
+            elements = NO_ELEMENTS;
+            size = 0;
+        }
+
+        void add(final Element element) {
+            if (size == elements.length) {
+                final Element[] newElements = new Element[Math.max(4, 2 * size)];
+                System.arraycopy(elements, 0, newElements, 0, size);
+                elements = newElements;
+            }
+
+            elements[size] = element;
+            ++size;
+        }
+
+        void remove(final Element element) {
+            for (int i = size - 1; i >= 0; --i) {
+                if (elements[i] == element) {
+                    System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+                    --size;
+                    elements[size] = null;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -16,24 +16,36 @@
  */
 package ch.jeda.ui;
 
+import ch.jeda.Configuration;
 import ch.jeda.Log;
 import ch.jeda.JedaInternal;
 import ch.jeda.platform.CanvasImp;
 import ch.jeda.platform.ImageImp;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Represents a bitmap image. A bitmap image can be loaded from an image file or be obtained by making a snapshot of a
  * {@link Canvas}. Simple image transformations are also supported.
+ * <p>
+ * Images loaded from files are cached, so loading the same file again does not read it a second time. The cache holds
+ * at most the number of megabytes specified by the property <tt>jeda.image.cache-limit</tt> (64 by default, 0 for no
+ * limit). When the limit is exceeded, the least recently used images are removed from the cache. Images that are
+ * still referenced by the program remain usable. Use {@link #release()} to remove an image from the cache explicitly.
  *
  * @since 1.0
- * @version 3
+ * @version 4
  */
 public final class Image {
 
-    private static final Map<String, ImageImp> CACHE = new HashMap<String, ImageImp>();
+    private static final int DEFAULT_CACHE_LIMIT_MB = 64;
+    private static final Map<String, ImageImp> CACHE = new LinkedHashMap<String, ImageImp>(16, 0.75f, true);
+    private static final long CACHE_LIMIT = 1024L * 1024L * Configuration.getInt("jeda.image.cache-limit",
+                                                                                 DEFAULT_CACHE_LIMIT_MB);
     private static final Map<String, ImageImp.Encoding> FORMAT_MAP = initFormatMap();
+    private static long cacheBytes;
     /**
      * @since 1.0
      */
@@ -195,6 +207,28 @@ public final class Image {
         return imp != null;
     }
 
+    /**
+     * Removes this image from the image cache. The image remains usable. If the image file is loaded again, it is read
+     * from the file. Has no effect if the image has not been loaded from a file or has already been removed from the
+     * cache.
+     *
+     * @since 2.7
+     */
+    public void release() {
+        synchronized (CACHE) {
+            final Iterator<ImageImp> values = CACHE.values().iterator();
+            while (values.hasNext()) {
+                final ImageImp value = values.next();
+                if (value == imp) {
+                    values.remove();
+                    cacheBytes = cacheBytes - bytes(value);
+                }
+            }
+
+            JedaInternal.setImageCacheSize(CACHE.size(), cacheBytes);
+        }
+    }
+
     /**
      * @deprecated Use {@link #rotateRad(double)} instead.
      */
@@ -358,6 +392,27 @@ public final class Image {
         return Math.max(0, Math.min(y, this.getHeight() - 1));
     }
 
+    private static long bytes(final ImageImp imp) {
+        if (imp == null) {
+            return 0;
+        }
+        else {
+            return 4L * imp.getWidth() * imp.getHeight();
+        }
+    }
+
+    /**
+     * Removes the least recently used images until the cache fits into its limit. The newest image is kept even if it
+     * exceeds the limit on its own.
+     */
+    private static void evict() {
+        final Iterator<ImageImp> values = CACHE.values().iterator();
+        while (CACHE_LIMIT > 0 && cacheBytes > CACHE_LIMIT && CACHE.size() > 1) {
+            cacheBytes = cacheBytes - bytes(values.next());
+            values.remove();
+        }
+    }
+
     private static Map<String, ImageImp.Encoding> initFormatMap() {
         final Map<String, ImageImp.Encoding> result = new HashMap<String, ImageImp.Encoding>();
         result.put("jpeg", ImageImp.Encoding.JPEG);
@@ -367,10 +422,26 @@ public final class Image {
     }
 
     private static ImageImp loadImp(final String filePath) {
-        if (!CACHE.containsKey(filePath)) {
-            CACHE.put(filePath, JedaInternal.createImageImp(filePath));
+        synchronized (CACHE) {
+            // Use get() rather than containsKey(), since only get() marks the entry as recently used.
+            final ImageImp cached = CACHE.get(filePath);
+            if (cached != null || CACHE.containsKey(filePath)) {
+                return cached;
+            }
         }
 
-        return CACHE.get(filePath);
+        // Images may be loaded concurrently by a ch.jeda.Loader, so decode the image without holding the lock.
+        final ImageImp result = JedaInternal.createImageImp(filePath);
+        synchronized (CACHE) {
+            if (!CACHE.containsKey(filePath)) {
+                CACHE.put(filePath, result);
+                cacheBytes = cacheBytes + bytes(result);
+                evict();
+                JedaInternal.setImageCacheSize(CACHE.size(), cacheBytes);
+                return result;
+            }
+
+            return CACHE.get(filePath);
+        }
     }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.ui;
+
+/**
+ * Provides reusable float arrays of an exact length. The platform canvas implementations take the length of a point
+ * array as the number of coordinates, so a single growing buffer cannot be used. Short arrays are kept per length,
+ * longer ones are allocated on demand. An array is only valid until the next call to {@link #get(int)} with the same
+ * length.
+ */
+final class PointBuffer {
+
+    private static final int MAX_CACHED_LENGTH = 64;
+    private final float[][] buffers;
+
+    PointBuffer() {
+        buffers = new float[MAX_CACHED_LENGTH + 1][];
+    }
+
+    float[] get(final int length) {
+        if (length > MAX_CACHED_LENGTH) {
+            return new float[length];
+        }
+
+        if (buffers[length] == null) {
+            buffers[length] = new float[length];
+        }
+
+        return buffers[length];
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.ui;
+
+import ch.jeda.event.EventType;
+import ch.jeda.event.PointerDownListener;
+import ch.jeda.event.PointerEvent;
+import ch.jeda.event.PointerListener;
+import ch.jeda.event.PointerMovedListener;
+import ch.jeda.event.PointerUpListener;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Delivers pointer events to the widgets of a view. Widgets that listen to pointer events are not registered with the
+ * event queue for these events. Instead, the router looks up the topmost widget under the pointer in a grid of widget
+ * bounds and delivers the event to this widget only. A widget that consumes a pointer down event captures the pointer:
+ * it receives all following events of the pointer until the pointer is released, even if it is no longer under the
+ * pointer.
+ * <p>
+ * Widgets with a draw order of at least 0 are drawn in canvas coordinates and are hit-tested with the canvas
+ * coordinates of the event, all other widgets are hit-tested with its world coordinates. The grid is rebuilt at most
+ * once per tick when the first pointer event of the tick is routed.
+ */
+class PointerRouter implements PointerListener {
+
+    /**
+     * The event types a routed widget is registered for in the event queue.
+     */
+    static final Set<EventType> OTHER_TYPES = EnumSet.complementOf(
+        EnumSet.of(EventType.POINTER_DOWN, EventType.POINTER_MOVED, EventType.POINTER_UP));
+    private final Map<Integer, Widget> captures;
+    private final Grid canvasGrid;
+    private final SortedMap<Integer, Set<Element>> elementsByDrawOrder;
+    private final View view;
+    private final Grid worldGrid;
+    private boolean valid;
+
+    PointerRouter(final View view, final SortedMap<Integer, Set<Element>> elementsByDrawOrder) {
+        captures = new HashMap<Integer, Widget>();
+        canvasGrid = new Grid();
+        this.elementsByDrawOrder = elementsByDrawOrder;
+        this.view = view;
+        worldGrid = new Grid();
+        valid = false;
+    }
+
+    /**
+     * Checks if pointer events are delivered to the element by the router.
+     */
+    static boolean isRouted(final Element element) {
+        return element instanceof Widget &&
+               (element instanceof PointerDownListener ||
+                element instanceof PointerMovedListener ||
+                element instanceof PointerUpListener);
+    }
+
+    /**
+     * Marks the grid as outdated. Called once per tick, since widgets may have been moved, resized, added or removed.
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    @Override
+    public void onPointerDown(final PointerEvent event) {
+        final Widget target = findTarget(event);
+        if (target instanceof PointerDownListener) {
+            ((PointerDownListener) target).onPointerDown(event);
+            if (event.isConsumed()) {
+                captures.put(event.getPointerId(), target);
+            }
+        }
+    }
+
+    @Override
+    public void onPointerMoved(final PointerEvent event) {
+        final Widget capture = getCapture(event.getPointerId());
+        if (capture instanceof PointerMovedListener) {
+            ((PointerMovedListener) capture).onPointerMoved(event);
+        }
+
+        if (!event.isConsumed()) {
+            final Widget target = findTarget(event);
+            if (target != capture && target instanceof PointerMovedListener) {
+                ((PointerMovedListener) target).onPointerMoved(event);
+            }
+        }
+    }
+
+    @Override
+    public void onPointerUp(final PointerEvent event) {
+        final Widget capture = getCapture(event.getPointerId());
+        captures.remove(event.getPointerId());
+        if (capture instanceof PointerUpListener) {
+            ((PointerUpListener) capture).onPointerUp(event);
+        }
+
+        if (!event.isConsumed()) {
+            final Widget target = findTarget(event);
+            if (target != capture && target instanceof PointerUpListener) {
+                ((PointerUpListener) target).onPointerUp(event);
+            }
+        }
+    }
+
+    private Widget findTarget(final PointerEvent event) {
+        if (!valid) {
+            rebuild();
+        }
+
+        // Widgets drawn in canvas coordinates are always drawn above the widgets drawn in world coordinates
+        final Widget result = canvasGrid.find(event.getViewX(), event.getViewY());
+        if (result != null) {
+            return result;
+        }
+        else {
+            return worldGrid.find(event.getWorldX(), event.getWorldY());
+        }
+    }
+
+    private Widget getCapture(final int pointerId) {
+        final Widget result = captures.get(pointerId);
+        if (result != null && result.getView() != view) {
+            captures.remove(pointerId);
+            return null;
+        }
+
+        return result;
+    }
+
+    private void rebuild() {
+        canvasGrid.clear();
+        worldGrid.clear();
+        for (final Map.Entry<Integer, Set<Element>> entry : elementsByDrawOrder.entrySet()) {
+            final Grid grid = entry.getKey() >= 0 ? canvasGrid : worldGrid;
+            for (final Element element : entry.getValue()) {
+                if (isRouted(element)) {
+                    grid.add((Widget) element);
+                }
+            }
+        }
+
+        canvasGrid.build();
+        worldGrid.build();
+        valid = true;
+    }
+
+    /**
+     * A uniform grid of widget bounds. The widgets are added in the order they are drawn, so the widget with the
+     * highest index is the topmost one. Each widget is entered in all cells its bounds overlap. The cells are kept in a
+     * hash table of linked lists. Widgets that overlap too many cells are kept in a separate list that is always
+     * searched.
+     */
+    private static class Grid {
+
+        private static final int MAX_CELLS_PER_WIDGET = 64;
+        private float[] bottom;
+        private float cellSize;
+        private int[] entryNext;
+        private int[] entryWidget;
+        private int entryCount;
+        private int[] heads;
+        private float[] left;
+        private int[] oversized;
+        private int oversizedCount;
+        private float[] right;
+        private float[] top;
+        private Widget[] widgets;
+        private int widgetCount;
+
+        Grid() {
+            bottom = new float[0];
+            entryNext = new int[0];
+            entryWidget = new int[0];
+            heads = new int[0];
+            left = new float[0];
+            oversized = new int[0];
+            right = new float[0];
+            top = new float[0];
+            widgets = new Widget[0];
+        }
+
+        void add(final Widget widget) {
+            if (widgetCount == widgets.length) {
+                final int capacity = Math.max(16, 2 * widgetCount);
+                widgets = Arrays.copyOf(widgets, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                bottom = Arrays.copyOf(bottom, capacity);
+                top = Arrays.copyOf(top, capacity);
+            }
+
+            final float x = widget.getX();
+            final float y = widget.getY();
+            widgets[widgetCount] = widget;
+            left[widgetCount] = x + Math.min(widget.getLeft(), widget.getRight());
+            right[widgetCount] = x + Math.max(widget.getLeft(), widget.getRight());
+            bottom[widgetCount] = y + Math.min(widget.getBottom(), widget.getTop());
+            top[widgetCount] = y + Math.max(widget.getBottom(), widget.getTop());
+            ++widgetCount;
+        }
+
+        void build() {
+            entryCount = 0;
+            oversizedCount = 0;
+            if (widgetCount == 0) {
+                return;
+            }
+
+            // Make the cells about as large as an average widget
+            float size = 0f;
+            for (int i = 0; i < widgetCount; ++i) {
+                size = size + Math.max(right[i] - left[i], top[i] - bottom[i]);
+            }
+
+            cellSize = size / widgetCount;
+            if (!(cellSize > 0f) || Float.isInfinite(cellSize)) {
+                cellSize = 1f;
+            }
+
+            int tableSize = 1;
+            while (tableSize < 4 * widgetCount) {
+                tableSize = tableSize << 1;
+            }
+
+            if (heads.length != tableSize) {
+                heads = new int[tableSize];
+            }
+
+            Arrays.fill(heads, -1);
+            for (int i = 0; i < widgetCount; ++i) {
+                final int x0 = cell(left[i]);
+                final int x1 = cell(right[i]);
+                final int y0 = cell(bottom[i]);
+                final int y1 = cell(top[i]);
+                if (((long) x1 - x0 + 1) * ((long) y1 - y0 + 1) > MAX_CELLS_PER_WIDGET) {
+                    if (oversizedCount == oversized.length) {
+                        oversized = Arrays.copyOf(oversized, Math.max(8, 2 * oversizedCount));
+                    }
+
+                    oversized[oversizedCount] = i;
+                    ++oversizedCount;
+                }
+                else {
+                    for (int cx = x0; cx <= x1; ++cx) {
+                        for (int cy = y0; cy <= y1; ++cy) {
+                            addEntry(i, hash(cx, cy) & (tableSize - 1));
+                        }
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            Arrays.fill(widgets, 0, widgetCount, null);
+            widgetCount = 0;
+        }
+
+        Widget find(final float x, final float y) {
+            if (widgetCount == 0) {
+                return null;
+            }
+
+            int best = -1;
+            int entry = heads[hash(cell(x), cell(y)) & (heads.length - 1)];
+            while (entry != -1) {
+                final int i = entryWidget[entry];
+                if (i > best && hit(i, x, y)) {
+                    best = i;
+                }
+
+                entry = entryNext[entry];
+            }
+
+            for (int j = 0; j < oversizedCount; ++j) {
+                final int i = oversized[j];
+                if (i > best && hit(i, x, y)) {
+                    best = i;
+                }
+            }
+
+            if (best == -1) {
+                return null;
+            }
+            else {
+                return widgets[best];
+            }
+        }
+
+        private void addEntry(final int widget, final int slot) {
+            if (entryCount == entryWidget.length) {
+                final int capacity = Math.max(32, 2 * entryCount);
+                entryWidget = Arrays.copyOf(entryWidget, capacity);
+                entryNext = Arrays.copyOf(entryNext, capacity);
+            }
+
+            entryWidget[entryCount] = widget;
+            entryNext[entryCount] = heads[slot];
+            heads[slot] = entryCount;
+            ++entryCount;
+        }
+
+        private int cell(final float coordinate) {
+            return (int) Math.floor(coordinate / cellSize);
+        }
+
+        private boolean hit(final int i, final float x, final float y) {
+            // Cells of different positions may share a slot, check the bounds before asking the widget
+            return left[i] <= x && x <= right[i] && bottom[i] <= y && y <= top[i] && widgets[i].contains(x, y);
+        }
+
+        private static int hash(final int x, final int y) {
+            final int hash = x * 73856093 ^ y * 19349663;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.ui;
+
+import ch.jeda.Log;
+import ch.jeda.Message;
+import ch.jeda.platform.ViewImp;
+
+/**
+ * Executes the display lists of a view on a render thread of its own. While the render thread draws a frame and
+ * updates the view implementation, the next frame is recorded into a second display list. At most one frame is in
+ * flight: submitting a frame waits until the previous one has been rendered. The render thread is started with the
+ * first frame and ends when the renderer is stopped. A stopped renderer discards all further frames.
+ */
+final class Renderer implements Runnable {
+
+    private final Object lock;
+    private DisplayList recording;
+    private DisplayList rendering;
+    private boolean busy;
+    private long lastRenderNanos;
+    private ViewImp pendingImp;
+    private boolean stopped;
+    private Thread thread;
+
+    Renderer() {
+        lock = new Object();
+        recording = new DisplayList();
+        rendering = new DisplayList();
+        busy = false;
+    }
+
+    /**
+     * Returns the display list that is currently recorded. Must only be called by the thread that draws.
+     */
+    DisplayList getDisplayList() {
+        return recording;
+    }
+
+    /**
+     * Returns the time the render thread needed to draw the last frame and update the view implementation.
+     */
+    long getLastRenderNanos() {
+        synchronized (lock) {
+            return lastRenderNanos;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            final ViewImp imp;
+            synchronized (lock) {
+                while (!busy && !stopped) {
+                    try {
+                        lock.wait();
+                    }
+                    catch (final InterruptedException ex) {
+                        // ignore
+                    }
+                }
+
+                if (!busy) {
+                    return;
+                }
+
+                imp = pendingImp;
+            }
+
+            final long start = System.nanoTime();
+            try {
+                rendering.replay();
+                imp.update();
+            }
+            catch (final Throwable ex) {
+                Log.e(ex, "Error while rendering frame.");
+            }
+
+            rendering.clear();
+            synchronized (lock) {
+                lastRenderNanos = System.nanoTime() - start;
+                busy = false;
+                pendingImp = null;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Hands the recorded frame over to the render thread, which draws it and then updates the view implementation.
+     */
+    void submit(final ViewImp imp) {
+        synchronized (lock) {
+            if (stopped) {
+                recording.clear();
+                return;
+            }
+
+            waitIdle();
+            final DisplayList temp = rendering;
+            rendering = recording;
+            recording = temp;
+            pendingImp = imp;
+            busy = true;
+            if (thread == null) {
+                thread = new Thread(this);
+                thread.setName(Message.get(Message.ENGINE_RENDER_THREAD_NAME));
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Stops the render thread after it has rendered the submitted frame and waits for it to end. Frames submitted
+     * afterwards are discarded. The recorded commands are released by the thread that draws on its next submit or sync.
+     */
+    void stop() {
+        final Thread oldThread;
+        synchronized (lock) {
+            waitIdle();
+            stopped = true;
+            oldThread = thread;
+            thread = null;
+            lock.notifyAll();
+        }
+
+        if (oldThread != null && oldThread != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (oldThread.isAlive()) {
+                try {
+                    oldThread.join();
+                }
+                catch (final InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits until the render thread is idle and then executes the commands recorded so far on the calling thread.
+     * Afterwards, the canvas implementations contain everything that has been drawn.
+     */
+    void sync() {
+        synchronized (lock) {
+            waitIdle();
+            if (stopped) {
+                recording.clear();
+                return;
+            }
+        }
+
+        if (!recording.isEmpty()) {
+            recording.replay();
+            recording.clear();
+        }
+    }
+
+    private void waitIdle() {
+        boolean interrupted = false;
+        while (busy) {
+            try {
+                lock.wait();
+            }
+            catch (final InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -16,12 +16,16 @@
  */
 package ch.jeda.ui;
 
+import ch.jeda.Configuration;
 import ch.jeda.DisplayMetrics;
 import ch.jeda.Jeda;
 import ch.jeda.JedaInternal;
+import ch.jeda.Log;
 import ch.jeda.event.Button;
 import ch.jeda.event.Event;
 import ch.jeda.event.EventQueue;
+import ch.jeda.event.EventRecorder;
+import ch.jeda.event.EventReplay;
 import ch.jeda.event.EventType;
 import ch.jeda.event.Key;
 import ch.jeda.event.KeyEvent;
@@ -32,15 +36,19 @@ import ch.jeda.event.TickListener;
 import ch.jeda.event.WheelListener;
 import ch.jeda.platform.ViewCallback;
 import ch.jeda.platform.ViewImp;
-import java.lang.reflect.Array;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * Represents the visualization of a virtual world. The view is where the user interacts with the program. On the Java
@@ -53,26 +61,35 @@ import java.util.Set;
  * </p><p>
  * The virtual world has a mathematical, cartesian coordinate system. That means the the x axis points to the right and
  * the y axis points upwards.
+ * </p><p>
+ * If the property <tt>jeda.render.thread</tt> is set to <tt>true</tt>, drawing on the foreground and background of
+ * views is recorded and executed on a separate render thread while the next tick is computed. In this mode, the
+ * foreground and background must only be drawn on from tick and event listeners.
+ * </p>
  *
  * @since 2.0
- * @version 3
+ * @version 4
  */
 public class View {
 
     private static final int DEFAULT_HEIGHT = 600;
     private static final int DEFAULT_WIDTH = 800;
     private static final EnumSet<ViewFeature> IMP_CHANGING_FEATURES = initImpChangingFeatures();
+    private static boolean inputLogInitialized;
     private final Callback callback;
+    private final ElementIndex elementIndex;
     private final Object elementLock;
+    private final Map<Element, Integer> elementDrawOrders;
+    private final SortedMap<Integer, Set<Element>> elementsByDrawOrder;
     private final Map<String, Set<Element>> elementsByName;
-    private final Set<Element> elementSet;
     private final EventQueue eventQueue;
-    private final List<Element> pendingInsertions;
-    private final List<Element> pendingRemovals;
+    private final List<Element> pendingDrawOrderChanges;
+    private final Set<Element> pendingInsertions;
+    private final Set<Element> pendingRemovals;
+    private final PointerRouter pointerRouter;
+    private final Renderer renderer;
     private final UserControl userControl;
     private Canvas background;
-    private Element[] elements;
-    private boolean elementsChanged;
     private Element followElement;
     private Canvas foreground;
     private ViewImp imp;
@@ -136,15 +153,24 @@ public class View {
      */
     public View(final int width, final int height, final ViewFeature... features) {
         callback = new Callback(this);
+        elementIndex = new ElementIndex();
         elementLock = new Object();
+        elementDrawOrders = new HashMap<Element, Integer>();
+        elementsByDrawOrder = new TreeMap<Integer, Set<Element>>();
         elementsByName = new HashMap<String, Set<Element>>();
-        elementSet = new HashSet<Element>();
         eventQueue = new EventQueue();
-        pendingInsertions = new ArrayList<Element>();
-        pendingRemovals = new ArrayList<Element>();
-        elements = new Element[0];
-        elementsChanged = false;
+        pendingDrawOrderChanges = new ArrayList<Element>();
+        pendingInsertions = new LinkedHashSet<Element>();
+        pendingRemovals = new LinkedHashSet<Element>();
+        pointerRouter = new PointerRouter(this, elementsByDrawOrder);
         paused = false;
+        if (Configuration.getBoolean("jeda.render.thread", false)) {
+            renderer = new Renderer();
+        }
+        else {
+            renderer = null;
+        }
+
         scale = 0.01f;
         simulationTime = 0f;
         title = Jeda.getProgramName();
@@ -153,6 +179,8 @@ public class View {
         Jeda.addEventListener(eventQueue);
         Jeda.addEventListener(new EventLoop(this));
         eventQueue.addListener(userControl);
+        eventQueue.addListener(pointerRouter);
+        initInputLog(eventQueue);
     }
 
     /**
@@ -207,6 +235,10 @@ public class View {
      * @since 2.0
      */
     public final void close() {
+        if (renderer != null) {
+            renderer.stop();
+        }
+
         imp.close();
     }
 
@@ -267,6 +299,35 @@ public class View {
         }
     }
 
+    /**
+     * Returns the element of the specified class with the specified index. The elements of a class are numbered from 0
+     * to {@link #getElementCount(java.lang.Class)} - 1 in the order they have been added to the view. Together with
+     * {@link #getElementCount(java.lang.Class)}, this method allows to loop over the elements of a class without
+     * creating an array:
+     * <pre><code> for (int i = 0; i &lt; view.getElementCount(Enemy.class); ++i) {
+     *     Enemy enemy = view.getElement(Enemy.class, i);
+     *     ...
+     * }</code></pre>
+     *
+     * @param <T> the type of the element to return
+     * @param clazz the class of the element to return
+     * @param index the index of the element to return
+     * @return the element of the specified class with the specified index
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or not smaller than the number of elements of
+     * the class
+     *
+     * @see #getElementCount(java.lang.Class)
+     * @see #getElements(java.lang.Class)
+     * @since 2.7
+     */
+    @SuppressWarnings("unchecked")
+    public final <T extends Element> T getElement(final Class<T> clazz, final int index) {
+        synchronized (elementLock) {
+            // Unchecked cast
+            return (T) elementIndex.get(clazz, index);
+        }
+    }
+
     /**
      * Returns an element of the specified class with the specified name.
      *
@@ -299,6 +360,21 @@ public class View {
         }
     }
 
+    /**
+     * Returns the number of elements of the specified class currently managed by the view.
+     *
+     * @param clazz the class of elements to count
+     * @return the number of elements of the specified class
+     *
+     * @see #getElement(java.lang.Class, int)
+     * @since 2.7
+     */
+    public final int getElementCount(final Class<? extends Element> clazz) {
+        synchronized (elementLock) {
+            return elementIndex.count(clazz);
+        }
+    }
+
     /**
      * Returns all elements currently managed by the view.
      *
@@ -311,7 +387,16 @@ public class View {
      */
     public final Element[] getElements() {
         synchronized (elementLock) {
-            return Arrays.copyOf(elements, elements.length);
+            final Element[] result = new Element[elementDrawOrders.size()];
+            int i = 0;
+            for (final Set<Element> layer : elementsByDrawOrder.values()) {
+                for (final Element element : layer) {
+                    result[i] = element;
+                    ++i;
+                }
+            }
+
+            return result;
         }
     }
 
@@ -328,20 +413,10 @@ public class View {
      * @see #remove(ch.jeda.ui.Element)
      * @since 2.0
      */
-    @SuppressWarnings("unchecked")
     public final <T extends Element> T[] getElements(final Class<T> clazz) {
-        final List<T> result = new ArrayList<T>();
         synchronized (elementLock) {
-            for (int i = 0; i < elements.length; ++i) {
-                if (clazz.isInstance(elements[i])) {
-                    // Unchecked cast
-                    result.add((T) elements[i]);
-                }
-            }
+            return elementIndex.toArray(clazz);
         }
-
-        // Unchecked cast
-        return result.toArray((T[]) Array.newInstance(clazz, result.size()));
     }
 
     /**
@@ -713,6 +788,17 @@ public class View {
     protected void elementRemoved(final Element element) {
     }
 
+    /**
+     * This method is invoked after all elements have been drawn. Override this method to draw an overlay in screen
+     * coordinates.
+     *
+     * @param canvas the canvas to draw on
+     *
+     * @since 2.7
+     */
+    protected void drawOverlay(final Canvas canvas) {
+    }
+
     /**
      * This method is invoked after the world elements has been drawn. Override this method to draw an overlay in world
      * coordinates.
@@ -743,7 +829,9 @@ public class View {
     }
 
     void drawOrderChanged(final Element element) {
-        elementsChanged = true;
+        synchronized (elementLock) {
+            pendingDrawOrderChanges.add(element);
+        }
     }
 
     void removeName(final Element element, final String name) {
@@ -763,26 +851,68 @@ public class View {
         }
     }
 
+    private void addToDrawOrder(final Element element) {
+        final int drawOrder = element.getDrawOrder();
+        Set<Element> layer = elementsByDrawOrder.get(drawOrder);
+        if (layer == null) {
+            layer = new LinkedHashSet<Element>();
+            elementsByDrawOrder.put(drawOrder, layer);
+        }
+
+        layer.add(element);
+        elementDrawOrders.put(element, drawOrder);
+    }
+
     private void doAdd(final Element element) {
-        if (elementSet.add(element)) {
-            addEventListener(element);
+        if (!elementDrawOrders.containsKey(element)) {
+            addToDrawOrder(element);
+            if (PointerRouter.isRouted(element)) {
+                eventQueue.addListener(element, PointerRouter.OTHER_TYPES);
+            }
+            else {
+                addEventListener(element);
+            }
+
             element.addToView(this);
             addName(element, element.getName());
+            elementIndex.add(element);
             elementAdded(element);
-            elementsChanged = true;
         }
     }
 
     private void doRemove(final Element element) {
-        if (elementSet.remove(element)) {
+        if (removeFromDrawOrder(element)) {
             removeEventListener(element);
             element.removeFromView(this);
             removeName(element, element.getName());
+            elementIndex.remove(element);
             elementRemoved(element);
-            elementsChanged = true;
         }
     }
 
+    private void doUpdateDrawOrder(final Element element) {
+        final Integer drawOrder = elementDrawOrders.get(element);
+        if (drawOrder != null && drawOrder != element.getDrawOrder()) {
+            removeFromDrawOrder(element);
+            addToDrawOrder(element);
+        }
+    }
+
+    private boolean removeFromDrawOrder(final Element element) {
+        final Integer drawOrder = elementDrawOrders.remove(element);
+        if (drawOrder == null) {
+            return false;
+        }
+
+        final Set<Element> layer = elementsByDrawOrder.get(drawOrder);
+        layer.remove(element);
+        if (layer.isEmpty()) {
+            elementsByDrawOrder.remove(drawOrder);
+        }
+
+        return true;
+    }
+
     private float toWorld(final float length) {
         return length * DisplayMetrics.DP_TO_METER / scale;
     }
@@ -797,14 +927,24 @@ public class View {
 
     private void tick(final TickEvent event) {
         if (imp.isVisible()) {
+            final long start = System.nanoTime();
             final double dt = event.getDuration();
             updateElements();
+            pointerRouter.invalidate();
             eventQueue.processEvents();
+            if (!imp.isVisible()) {
+                // An event listener has closed the view.
+                return;
+            }
+
+            final long dispatched = System.nanoTime();
             if (!paused) {
                 simulationTime = simulationTime + dt;
                 step(dt);
-                for (int i = 0; i < elements.length; ++i) {
-                    elements[i].step(dt);
+                for (final Set<Element> layer : elementsByDrawOrder.values()) {
+                    for (final Element element : layer) {
+                        element.step(dt);
+                    }
                 }
             }
 
@@ -816,26 +956,47 @@ public class View {
             final float s = scale * DisplayMetrics.METER_TO_DP;
             foreground.setWorldTransformation(s, s, translationX, translationY);
             boolean world = true;
-            for (int i = 0; i < elements.length; ++i) {
-                if (world && elements[i].getDrawOrder() >= 0) {
+            for (final Map.Entry<Integer, Set<Element>> entry : elementsByDrawOrder.entrySet()) {
+                if (world && entry.getKey() >= 0) {
                     drawWorldOverlay(foreground);
                     foreground.setWorldTransformation(1f, 1f, 0f, 0f);
                     world = false;
                 }
 
-                elements[i].internalDraw(foreground);
+                for (final Element element : entry.getValue()) {
+                    element.internalDraw(foreground);
+                }
             }
 
             if (world) {
                 drawWorldOverlay(foreground);
+                foreground.setWorldTransformation(1f, 1f, 0f, 0f);
+            }
+
+            drawOverlay(foreground);
+            final long drawn = System.nanoTime();
+            final long updateNanos;
+            if (renderer == null) {
+                imp.update();
+                updateNanos = System.nanoTime() - drawn;
+            }
+            else {
+                // Submitting may wait for the previous frame, so report the time the render thread needed for it.
+                renderer.submit(imp);
+                updateNanos = renderer.getLastRenderNanos();
             }
 
-            imp.update();
+            JedaInternal.recordViewTick(dispatched - start, drawn - dispatched, updateNanos,
+                                        elementDrawOrders.size());
         }
     }
 
     private void resetImp(final int width, final int height, final EnumSet<ViewFeature> features) {
         if (imp != null) {
+            if (renderer != null) {
+                renderer.sync();
+            }
+
             imp.close();
         }
 
@@ -844,8 +1005,15 @@ public class View {
         userControl.setScalingEnabled(features.contains(ViewFeature.USER_SCALE));
         userControl.setScrollingEnabled(features.contains(ViewFeature.USER_SCROLL));
 
-        foreground = new Canvas(imp.getForeground());
-        background = new Canvas(imp.getBackground());
+        if (renderer == null) {
+            foreground = new Canvas(imp.getForeground());
+            background = new Canvas(imp.getBackground());
+        }
+        else {
+            foreground = new Canvas(new DisplayListCanvasImp(imp.getForeground(), renderer));
+            background = new Canvas(new DisplayListCanvasImp(imp.getBackground(), renderer));
+        }
+
         background.setColor(Color.WHITE);
         background.fill();
         background.setColor(Color.BLACK);
@@ -869,9 +1037,12 @@ public class View {
                 pendingInsertions.clear();
             }
 
-            if (elementsChanged) {
-                elements = elementSet.toArray(new Element[elementSet.size()]);
-                Arrays.sort(elements, Element.DRAW_ORDER);
+            if (!pendingDrawOrderChanges.isEmpty()) {
+                for (int i = 0; i < pendingDrawOrderChanges.size(); ++i) {
+                    doUpdateDrawOrder(pendingDrawOrderChanges.get(i));
+                }
+
+                pendingDrawOrderChanges.clear();
             }
 
             elementLock.notifyAll();
@@ -884,6 +1055,37 @@ public class View {
         return result;
     }
 
+    /**
+     * Attaches the input recording or replay specified by the properties <tt>jeda.input.record</tt> and
+     * <tt>jeda.input.replay</tt> to the event queue of the first view of the program.
+     */
+    private static synchronized void initInputLog(final EventQueue eventQueue) {
+        if (inputLogInitialized) {
+            return;
+        }
+
+        inputLogInitialized = true;
+        final String replayPath = Configuration.getString("jeda.input.replay", null);
+        if (replayPath != null) {
+            try {
+                eventQueue.setReplay(new EventReplay(new FileInputStream(replayPath)));
+            }
+            catch (final IOException ex) {
+                Log.e(ex, "Cannot replay input from '", replayPath, "'.");
+            }
+        }
+
+        final String recordPath = Configuration.getString("jeda.input.record", null);
+        if (recordPath != null) {
+            try {
+                eventQueue.setRecorder(new EventRecorder(new FileOutputStream(recordPath)));
+            }
+            catch (final IOException ex) {
+                Log.e(ex, "Cannot record input to '", recordPath, "'.");
+            }
+        }
+    }
+
     private static EnumSet<ViewFeature> toSet(final ViewFeature... features) {
         final EnumSet<ViewFeature> result = EnumSet.noneOf(ViewFeature.class);
         for (final ViewFeature feature : features) {
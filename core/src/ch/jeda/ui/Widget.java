@@ -140,10 +140,11 @@ public abstract class Widget extends Element {
             return;
         }
 
-        final Widget[] widgets = getView().getElements(Widget.class);
-        for (int i = 0; i < widgets.length; ++i) {
-            if (widgets[i].selected) {
-                widgets[i].selected = false;
+        final View view = getView();
+        for (int i = 0; i < view.getElementCount(Widget.class); ++i) {
+            final Widget widget = view.getElement(Widget.class, i);
+            if (widget.selected) {
+                widget.selected = false;
             }
         }
 
@@ -4,6 +4,7 @@ import ch.jeda.event.Key;
 import ch.jeda.ui.Color;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -162,6 +163,19 @@ public class DataTest {
         assertArrayEquals(squares, data.readInts(KEY));
     }
 
+    @Test
+    public void parsedArrayTest() {
+        final Data data = new Data("<data><key>1</key><key>4</key><key>9</key><text>1.50</text><text>2</text></data>");
+        assertArrayEquals(new int[]{1, 4, 9}, data.readInts(KEY));
+        assertArrayEquals(new double[]{1.0, 4.0, 9.0}, data.readDoubles(KEY), DELTA);
+        assertEquals("4", data.readStrings(KEY)[1]);
+        // values that are not exactly represented by a primitive type keep their text
+        assertArrayEquals(new double[]{1.5, 2.0}, data.readDoubles("text"), DELTA);
+        assertArrayEquals(new int[]{-1, 2}, data.readInts("text", -1));
+        assertEquals("1.50", data.readString("text"));
+        assertEquals("<data><key>1</key><key>4</key><key>9</key><text>1.50</text><text>2</text></data>", data.toLine());
+    }
+
     @Test
     public void objectListTest() {
         final Data data = new Data();
@@ -213,6 +227,57 @@ public class DataTest {
         assertArrayEquals(new int[]{1, 4, 9, 16, 25}, data.readInts("squares"));
     }
 
+    @Test
+    public void namesTest() {
+        final Data data = createSample();
+        assertFalse(data.isEmpty());
+        assertArrayEquals(new String[]{"a_boolean", "a_color", "a_double", "a_float", "a_key", "a_string", "an_int",
+                                       "squares"}, data.getNames());
+        data.remove("squares");
+        assertFalse(data.hasValue("squares"));
+        assertArrayEquals(new int[0], data.readInts("squares"));
+        data.clear();
+        assertTrue(data.isEmpty());
+    }
+
+    @Test
+    public void nestedObjectTest() {
+        Data data = createSample();
+        data.save("nested.xml");
+        data = new Data("nested.xml");
+        assertEquals(Color.AMBER_100, data.readObject("a_color"));
+        assertEquals(Key.ALT_GRAPH, data.readKey("a_key"));
+        assertEquals("Hello, World", data.readString("a_string"));
+        // Values of nested objects are not visible in the parent
+        assertFalse(data.hasValue("r"));
+        assertEquals(data.toLine(), new Data(data.toLine()).toLine());
+    }
+
+    @Test
+    public void backgroundSaveTest() throws Exception {
+        final Data data = createSample();
+        final Future<?> saved = data.saveInBackground("background.xml");
+        data.writeInt("an_int", 7);
+        saved.get();
+        assertEquals(42, new Data("background.xml").readInt("an_int"));
+        assertEquals(Color.AMBER_100, new Data("background.xml").readObject("a_color"));
+    }
+
+    @Test
+    public void typeTagTest() {
+        // The registry is global, so use a type of this test and remove the tag again.
+        Data.registerType("data_test_point", Point.class);
+        try {
+            final Data data = new Data();
+            data.writeObject(KEY, new Point(3, 4));
+            assertEquals("<data><key class=\"data_test_point\"><x>3</x><y>4</y></key></data>", data.toLine());
+            assertEquals(new Point(3, 4), new Data(data.toLine()).readObject(KEY));
+        }
+        finally {
+            StorableFactory.unregister("data_test_point");
+        }
+    }
+
     private Data createSample() {
         Data result = new Data();
         result.writeBoolean("a_boolean", true);
@@ -225,4 +290,41 @@ public class DataTest {
         result.writeObject("a_color", Color.AMBER_100);
         return result;
     }
+
+    public static class Point implements Storable {
+
+        private final int x;
+        private final int y;
+
+        public Point(final Data data) {
+            this(data.readInt("x"), data.readInt("y"));
+        }
+
+        Point(final int x, final int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (object instanceof Point) {
+                final Point other = (Point) object;
+                return x == other.x && y == other.y;
+            }
+            else {
+                return false;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + y;
+        }
+
+        @Override
+        public void writeTo(final Data data) {
+            data.writeInt("x", x);
+            data.writeInt("y", y);
+        }
+    }
 }
@@ -0,0 +1,200 @@
+package ch.jeda.event;
+
+import ch.jeda.Connection;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EventReplayTest {
+
+    private static final Object SOURCE = new Object();
+    private static final int TICKS = 6;
+
+    @Test
+    public void roundTripTest() throws IOException {
+        final List<List<Event>> recorded = createEvents();
+        final byte[] log = record(recorded);
+        final EventReplay replay = new EventReplay(new ByteArrayInputStream(log));
+        for (int tick = 0; tick < TICKS; ++tick) {
+            final List<Event> events = live(recorded.get(tick));
+            replay.replay(tick, events);
+            assertEquals(describe(recorded.get(tick)), describe(events));
+        }
+
+        assertTrue(replay.isFinished());
+    }
+
+    @Test
+    public void truncatedTest() throws IOException {
+        final List<List<Event>> recorded = createEvents();
+        final byte[] log = record(recorded);
+        // Cut the log in the middle of the last record
+        final byte[] truncated = new byte[log.length - 3];
+        System.arraycopy(log, 0, truncated, 0, truncated.length);
+        final EventReplay replay = new EventReplay(new ByteArrayInputStream(truncated));
+        for (int tick = 0; tick < TICKS - 1; ++tick) {
+            final List<Event> events = live(recorded.get(tick));
+            replay.replay(tick, events);
+            assertEquals(describe(recorded.get(tick)), describe(events));
+        }
+
+        final List<Event> last = recorded.get(TICKS - 1);
+        final List<Event> events = live(last);
+        replay.replay(TICKS - 1, events);
+        assertEquals(describe(last.subList(0, last.size() - 1)), describe(events));
+        assertTrue(replay.isFinished());
+        // Once the replay is finished, live input is still discarded
+        final List<Event> after = live(last);
+        replay.replay(TICKS, after);
+        assertEquals(describe(produced(last)), describe(after));
+    }
+
+    @Test
+    public void invalidOrdinalTest() throws IOException {
+        final List<List<Event>> recorded = createEvents();
+        final byte[] log = record(recorded);
+        // The event type of the first record follows the magic number, the tick and the position.
+        log[6] = (byte) 0xff;
+        final EventReplay replay = new EventReplay(new ByteArrayInputStream(log));
+        assertTrue(replay.isFinished());
+        final List<Event> events = live(recorded.get(0));
+        replay.replay(0, events);
+        assertEquals(describe(produced(recorded.get(0))), describe(events));
+    }
+
+    @Test
+    public void noRecordingTest() {
+        try {
+            new EventReplay(new ByteArrayInputStream(new byte[]{1, 2}));
+            fail("IOException expected");
+        }
+        catch (IOException ex) {
+            // ok
+        }
+    }
+
+    private static List<List<Event>> createEvents() {
+        final List<List<Event>> result = new ArrayList<List<Event>>();
+        for (int tick = 0; tick < TICKS; ++tick) {
+            result.add(new ArrayList<Event>());
+        }
+
+        final Connection connection = new TestConnection();
+        result.get(0).add(new KeyEvent(SOURCE, EventType.KEY_DOWN, Key.A));
+        result.get(0).add(new TickEvent(SOURCE, 0.02, 50.0));
+        result.get(0).add(new PointerEvent(SOURCE, EventType.POINTER_DOWN, 1, EnumSet.of(Button.PRIMARY), 0f, 10f,
+                                           20f, 1.5f, 2.5f));
+        result.get(1).add(new TickEvent(SOURCE, 0.02, 50.0));
+        result.get(3).add(new TickEvent(SOURCE, 0.02, 50.0));
+        result.get(3).add(new SensorEvent(SOURCE, SensorType.ACCELERATION, 0.5, -9.81, 1.25));
+        result.get(3).add(new MessageEvent(connection, "<data><key>42</key></data>"));
+        result.get(3).add(new TickEvent(SOURCE, 0.02, 50.0));
+        result.get(3).add(new KeyEvent(SOURCE, EventType.KEY_TYPED, 'x'));
+        result.get(3).add(new KeyEvent(SOURCE, EventType.KEY_UP, Key.A, 3));
+        result.get(5).add(new SensorEvent(SOURCE, SensorType.LIGHT, true, 120.0));
+        result.get(5).add(new PointerEvent(SOURCE, EventType.WHEEL, 0, EnumSet.noneOf(Button.class), -2f, 5f, 6f,
+                                           7f, 8f));
+        return result;
+    }
+
+    private static String describe(final List<Event> events) {
+        final StringBuilder result = new StringBuilder();
+        for (final Event event : events) {
+            result.append(event.getType());
+            if (event instanceof KeyEvent) {
+                final KeyEvent keyEvent = (KeyEvent) event;
+                result.append(' ').append(keyEvent.getKey());
+                result.append(' ').append((int) keyEvent.getKeyChar());
+                result.append(' ').append(keyEvent.getRepeatCount());
+            }
+            else if (event instanceof MessageEvent) {
+                result.append(' ').append(((MessageEvent) event).getLine());
+            }
+            else if (event instanceof PointerEvent) {
+                final PointerEvent pointerEvent = (PointerEvent) event;
+                result.append(' ').append(pointerEvent.getPointerId());
+                result.append(' ').append(pointerEvent.isPressed(Button.PRIMARY));
+                result.append(' ').append(pointerEvent.getWheel());
+                result.append(' ').append(pointerEvent.getViewX());
+                result.append(' ').append(pointerEvent.getViewY());
+                result.append(' ').append(pointerEvent.getWorldX());
+                result.append(' ').append(pointerEvent.getWorldY());
+            }
+            else if (event instanceof SensorEvent) {
+                final SensorEvent sensorEvent = (SensorEvent) event;
+                result.append(' ').append(sensorEvent.getSensorType());
+                result.append(' ').append(sensorEvent.isMaximum());
+                result.append(' ').append(sensorEvent.getValue());
+                result.append(' ').append(sensorEvent.getX());
+                result.append(' ').append(sensorEvent.getY());
+                result.append(' ').append(sensorEvent.getZ());
+            }
+
+            result.append('\n');
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Returns the events that are produced again during a replay, together with a live input event that must be
+     * discarded.
+     */
+    private static List<Event> live(final List<Event> events) {
+        final List<Event> result = produced(events);
+        result.add(0, new PointerEvent(SOURCE, EventType.POINTER_MOVED, 7, EnumSet.noneOf(Button.class), 0f, 99f, 99f,
+                                       99f, 99f));
+        return result;
+    }
+
+    /**
+     * Returns the events that are not input.
+     */
+    private static List<Event> produced(final List<Event> events) {
+        final List<Event> result = new ArrayList<Event>();
+        for (final Event event : events) {
+            if (!EventLog.isInput(event)) {
+                result.add(event);
+            }
+        }
+
+        return result;
+    }
+
+    private static byte[] record(final List<List<Event>> events) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final EventRecorder recorder = new EventRecorder(out);
+        for (int tick = 0; tick < events.size(); ++tick) {
+            recorder.record(tick, events.get(tick));
+        }
+
+        recorder.close();
+        return out.toByteArray();
+    }
+
+    private static final class TestConnection extends Connection {
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String getRemoteAddress() {
+            return "test";
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void sendLine(final String line) {
+        }
+    }
+}
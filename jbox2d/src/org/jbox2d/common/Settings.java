@@ -221,6 +221,18 @@ public class Settings {
    */
   public static final int minParticleBufferCapacity = 256;
 
+  /**
+   * The number of threads used to solve the per-particle passes of a particle system. Set to 1 to
+   * solve particles on the stepping thread only.
+   */
+  public static int particleThreadCount = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The minimum number of particles (or particle contacts) a worker thread is given. Smaller passes
+   * are solved on the stepping thread.
+   */
+  public static int minParticlesPerThread = 1024;
+
 
   /**
    * Friction mixing law. Feel free to customize this. TODO djm: add customization
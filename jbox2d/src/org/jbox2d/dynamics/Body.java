@@ -394,6 +394,25 @@ public class Body {
     m_linearVelocity.set(v);
   }
 
+  /**
+   * Set the linear velocity of the center of mass without allocating a vector.
+   * 
+   * @param vx the new horizontal linear velocity of the center of mass.
+   * @param vy the new vertical linear velocity of the center of mass.
+   */
+  public final void setLinearVelocity(float vx, float vy) {
+    if (m_type == BodyType.STATIC) {
+      return;
+    }
+
+    if (vx * vx + vy * vy > 0.0f) {
+      setAwake(true);
+    }
+
+    m_linearVelocity.x = vx;
+    m_linearVelocity.y = vy;
+  }
+
   /**
    * Get the linear velocity of the center of mass. Do not modify, instead use
    * {@link #setLinearVelocity(Vec2)}.
@@ -493,6 +512,48 @@ public class Body {
     m_force.y += force.y;
   }
 
+  /**
+   * Apply a force at a world point without allocating vectors. See {@link #applyForce(Vec2, Vec2)}.
+   * 
+   * @param fx the horizontal world force vector, usually in Newtons (N).
+   * @param fy the vertical world force vector, usually in Newtons (N).
+   * @param px the horizontal world position of the point of application.
+   * @param py the vertical world position of the point of application.
+   */
+  public final void applyForce(float fx, float fy, float px, float py) {
+    if (m_type != BodyType.DYNAMIC) {
+      return;
+    }
+
+    if (isAwake() == false) {
+      setAwake(true);
+    }
+
+    m_force.x += fx;
+    m_force.y += fy;
+
+    m_torque += (px - m_sweep.c.x) * fy - (py - m_sweep.c.y) * fx;
+  }
+
+  /**
+   * Apply a force to the center of mass without allocating a vector. This wakes up the body.
+   * 
+   * @param fx the horizontal world force vector, usually in Newtons (N).
+   * @param fy the vertical world force vector, usually in Newtons (N).
+   */
+  public final void applyForceToCenter(float fx, float fy) {
+    if (m_type != BodyType.DYNAMIC) {
+      return;
+    }
+
+    if (isAwake() == false) {
+      setAwake(true);
+    }
+
+    m_force.x += fx;
+    m_force.y += fy;
+  }
+
   /**
    * Apply a torque. This affects the angular velocity without affecting the linear velocity of the
    * center of mass. This wakes up the body.
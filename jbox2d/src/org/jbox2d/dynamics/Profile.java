@@ -39,6 +39,7 @@ public class Profile {
     float min;
     float max;
     float accum;
+    float last;
 
     public ProfileEntry() {
       min = Float.MAX_VALUE;
@@ -46,12 +47,23 @@ public class Profile {
     }
 
     public void record(float value) {
+      last = value;
       longAvg = longAvg * (1 - LONG_FRACTION) + value * LONG_FRACTION;
       shortAvg = shortAvg * (1 - SHORT_FRACTION) + value * SHORT_FRACTION;
       min = MathUtils.min(value, min);
       max = MathUtils.max(value, max);
     }
 
+    /** The most recently recorded value, 0 if nothing has been recorded since {@link #clearLast}. */
+    public float getLast() {
+      return last;
+    }
+
+    /** Forgets the most recent value without affecting the averages. */
+    public void clearLast() {
+      last = 0;
+    }
+
     public void startAccum() {
       accum = 0;
     }
@@ -81,6 +93,23 @@ public class Profile {
   public final ProfileEntry broadphase = new ProfileEntry();
   public final ProfileEntry solveTOI = new ProfileEntry();
 
+  /**
+   * Clears the most recent value of every entry. Called at the start of a step, so phases that
+   * are skipped during the step report 0 instead of the value of an earlier step.
+   */
+  public void clearLast() {
+    step.clearLast();
+    stepInit.clearLast();
+    collide.clearLast();
+    solveParticleSystem.clearLast();
+    solve.clearLast();
+    solveInit.clearLast();
+    solveVelocity.clearLast();
+    solvePosition.clearLast();
+    broadphase.clearLast();
+    solveTOI.clearLast();
+  }
+
   public void toDebugStrings(List<String> strings) {
     strings.add("Profile:");
     strings.add(" step: " + step);
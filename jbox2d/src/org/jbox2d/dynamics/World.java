@@ -595,6 +595,7 @@ public class World {
    * @param positionIterations for the position constraint solver.
    */
   public void step(float dt, int velocityIterations, int positionIterations) {
+    m_profile.clearLast();
     stepTimer.reset();
     tempTimer.reset();
     // log.debug("Starting step");
@@ -1893,6 +1894,25 @@ public class World {
     return m_particleSystem.getParticleDamping();
   }
 
+  /**
+   * Set the number of threads used to solve the particle simulation. With a single thread, the
+   * particles are solved on the thread calling {@link #step(float, int, int)}.
+   * 
+   * @param threadCount
+   */
+  public void setParticleThreadCount(int threadCount) {
+    m_particleSystem.setThreadCount(threadCount);
+  }
+
+  /**
+   * Get the number of threads used to solve the particle simulation.
+   * 
+   * @return
+   */
+  public int getParticleThreadCount() {
+    return m_particleSystem.getThreadCount();
+  }
+
   /**
    * Change the particle radius. You should set this only once, on world start. If you change the
    * radius during execution, existing particles may explode, shrink, or behave unexpectedly.
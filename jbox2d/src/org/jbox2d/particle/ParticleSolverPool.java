@@ -0,0 +1,162 @@
+package org.jbox2d.particle;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jbox2d.common.Settings;
+
+/**
+ * Splits the per-particle passes of a {@link ParticleSystem} into contiguous index ranges and
+ * solves them on a fixed pool of daemon threads. The calling thread always solves the last range
+ * itself and waits for the others to finish, so a pass has completed when {@link #run} returns.
+ * Idle worker threads end after {@link #IDLE_SECONDS}, so a discarded world does not keep them
+ * alive.
+ */
+class ParticleSolverPool {
+
+  static final long IDLE_SECONDS = 1;
+
+  /** A pass over a range of particles, contacts or proxies. */
+  interface RangeTask {
+    /**
+     * Solves the range [from, to). Ranges of the same pass never overlap.
+     *
+     * @param worker the index of the range, between 0 and {@link ParticleSolverPool#getWorkerCount()} - 1
+     */
+    void run(int worker, int from, int to);
+  }
+
+  private final Range[] m_ranges;
+  private final int m_threadCount;
+  private ExecutorService m_executor;
+  private volatile Throwable m_error;
+
+  ParticleSolverPool(int threadCount) {
+    m_threadCount = threadCount < 1 ? 1 : threadCount;
+    m_ranges = new Range[m_threadCount];
+    for (int i = 0; i < m_threadCount; i++) {
+      m_ranges[i] = new Range(i);
+    }
+  }
+
+  /** The maximum number of ranges a pass is split into. */
+  int getWorkerCount() {
+    return m_threadCount;
+  }
+
+  /** Returns the number of ranges a pass over count items is split into. */
+  int getRangeCount(int count) {
+    int ranges = count / Math.max(1, Settings.minParticlesPerThread);
+    if (ranges > m_threadCount) {
+      return m_threadCount;
+    }
+    return ranges < 1 ? 1 : ranges;
+  }
+
+  /** Returns the first item of the given range when a pass over count items is split. */
+  static int rangeStart(int range, int rangeCount, int count) {
+    return (int) ((long) count * range / rangeCount);
+  }
+
+  /** Runs the task over [0, count), split into up to {@link #getWorkerCount()} ranges. */
+  void run(RangeTask task, int count) {
+    final int rangeCount = getRangeCount(count);
+    if (rangeCount == 1) {
+      task.run(0, 0, count);
+      return;
+    }
+    final CountDownLatch latch = new CountDownLatch(rangeCount - 1);
+    m_error = null;
+    final ExecutorService executor = getExecutor();
+    for (int i = 0; i < rangeCount - 1; i++) {
+      final Range range = m_ranges[i];
+      range.task = task;
+      range.from = rangeStart(i, rangeCount, count);
+      range.to = rangeStart(i + 1, rangeCount, count);
+      range.latch = latch;
+      executor.execute(range);
+    }
+    task.run(rangeCount - 1, rangeStart(rangeCount - 1, rangeCount, count), count);
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException ex) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    final Throwable error = m_error;
+    if (error != null) {
+      m_error = null;
+      if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      }
+      if (error instanceof Error) {
+        throw (Error) error;
+      }
+      throw new RuntimeException(error);
+    }
+  }
+
+  /** Stops the worker threads. The pool restarts them if it is used again. */
+  synchronized void shutdown() {
+    if (m_executor != null) {
+      m_executor.shutdown();
+      m_executor = null;
+    }
+  }
+
+  private synchronized ExecutorService getExecutor() {
+    if (m_executor == null) {
+      final int workers = m_threadCount - 1;
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, IDLE_SECONDS,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new WorkerFactory());
+      executor.allowCoreThreadTimeOut(true);
+      m_executor = executor;
+    }
+    return m_executor;
+  }
+
+  private class Range implements Runnable {
+    final int worker;
+    RangeTask task;
+    int from;
+    int to;
+    CountDownLatch latch;
+
+    Range(int worker) {
+      this.worker = worker;
+    }
+
+    @Override
+    public void run() {
+      try {
+        task.run(worker, from, to);
+      } catch (Throwable ex) {
+        m_error = ex;
+      } finally {
+        latch.countDown();
+      }
+    }
+  }
+
+  private static class WorkerFactory implements ThreadFactory {
+    private int m_count;
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread result = new Thread(runnable);
+      result.setName("jbox2d-particle-" + (++m_count));
+      result.setDaemon(true);
+      return result;
+    }
+  }
+}
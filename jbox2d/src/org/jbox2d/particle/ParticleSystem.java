@@ -114,6 +114,11 @@ public class ParticleSystem {
 
   World m_world;
 
+  ParticleSolverPool m_solverPool;
+  ContactBuffer[] m_workerContactBuffers;
+  float[][] m_workerBufferX; // per-worker scatter buffers, summed per particle afterwards
+  float[][] m_workerBufferY;
+
   public ParticleSystem(World world) {
     m_world = world;
     m_timestamp = 0;
@@ -163,6 +168,29 @@ public class ParticleSystem {
     m_velocityBuffer = new ParticleBuffer<Vec2>(Vec2.class);
     m_colorBuffer = new ParticleBuffer<ParticleColor>(ParticleColor.class);
     m_userDataBuffer = new ParticleBuffer<Object>(Object.class);
+    setThreadCount(Settings.particleThreadCount);
+  }
+
+  /**
+   * Sets the number of threads used to solve the per-particle passes. With a single thread the
+   * particles are solved on the thread that steps the world.
+   */
+  public void setThreadCount(int threadCount) {
+    if (m_solverPool != null) {
+      m_solverPool.shutdown();
+    }
+    m_solverPool = new ParticleSolverPool(threadCount);
+    final int workerCount = m_solverPool.getWorkerCount();
+    m_workerContactBuffers = new ContactBuffer[workerCount];
+    for (int i = 0; i < workerCount; i++) {
+      m_workerContactBuffers[i] = new ContactBuffer();
+    }
+    m_workerBufferX = new float[workerCount][];
+    m_workerBufferY = new float[workerCount][];
+  }
+
+  public int getThreadCount() {
+    return m_solverPool.getWorkerCount();
   }
   
 //  public void assertNotSamePosition() {
@@ -547,6 +575,21 @@ public class ParticleSystem {
   }
 
   public void addContact(int a, int b) {
+    if (m_contactCount >= m_contactCapacity) {
+      int oldCapacity = m_contactCapacity;
+      int newCapacity =
+          m_contactCount != 0 ? 2 * m_contactCount : Settings.minParticleBufferCapacity;
+      m_contactBuffer =
+          BufferUtils.reallocateBuffer(ParticleContact.class, m_contactBuffer, oldCapacity,
+              newCapacity);
+      m_contactCapacity = newCapacity;
+    }
+    if (initContact(m_contactBuffer[m_contactCount], a, b)) {
+      m_contactCount++;
+    }
+  }
+
+  private boolean initContact(ParticleContact contact, int a, int b) {
     assert(a != b);
     Vec2 pa = m_positionBuffer.data[a];
     Vec2 pb = m_positionBuffer.data[b];
@@ -555,62 +598,52 @@ public class ParticleSystem {
     float d2 = dx * dx + dy * dy;
 //    assert(d2 != 0);
     if (d2 < m_squaredDiameter) {
-      if (m_contactCount >= m_contactCapacity) {
-        int oldCapacity = m_contactCapacity;
-        int newCapacity =
-            m_contactCount != 0 ? 2 * m_contactCount : Settings.minParticleBufferCapacity;
-        m_contactBuffer =
-            BufferUtils.reallocateBuffer(ParticleContact.class, m_contactBuffer, oldCapacity,
-                newCapacity);
-        m_contactCapacity = newCapacity;
-      }
       float invD = d2 != 0 ? MathUtils.sqrt(1 / d2) : Float.MAX_VALUE;
-      ParticleContact contact = m_contactBuffer[m_contactCount];
       contact.indexA = a;
       contact.indexB = b;
       contact.flags = m_flagsBuffer.data[a] | m_flagsBuffer.data[b];
       contact.weight = 1 - d2 * invD * m_inverseDiameter;
       contact.normal.x = invD * dx;
       contact.normal.y = invD * dy;
-      m_contactCount++;
+      return true;
     }
+    return false;
   }
 
   public void updateContacts(boolean exceptZombie) {
-    for (int p = 0; p < m_proxyCount; p++) {
-      Proxy proxy = m_proxyBuffer[p];
-      int i = proxy.index;
-      Vec2 pos = m_positionBuffer.data[i];
-      proxy.tag = computeTag(m_inverseDiameter * pos.x, m_inverseDiameter * pos.y);
-    }
+    m_solverPool.run(updateTagsTask, m_proxyCount);
     Arrays.sort(m_proxyBuffer, 0, m_proxyCount);
     m_contactCount = 0;
-    int c_index = 0;
-    for (int i = 0; i < m_proxyCount; i++) {
-      Proxy a = m_proxyBuffer[i];
-      long rightTag = computeRelativeTag(a.tag, 1, 0);
-      for (int j = i + 1; j < m_proxyCount; j++) {
-        Proxy b = m_proxyBuffer[j];
-        if (rightTag < b.tag) {
-          break;
+    if (m_solverPool.getRangeCount(m_proxyCount) > 1) {
+      findContactsParallel();
+    } else {
+      int c_index = 0;
+      for (int i = 0; i < m_proxyCount; i++) {
+        Proxy a = m_proxyBuffer[i];
+        long rightTag = computeRelativeTag(a.tag, 1, 0);
+        for (int j = i + 1; j < m_proxyCount; j++) {
+          Proxy b = m_proxyBuffer[j];
+          if (rightTag < b.tag) {
+            break;
+          }
+          addContact(a.index, b.index);
         }
-        addContact(a.index, b.index);
-      }
-      long bottomLeftTag = computeRelativeTag(a.tag, -1, 1);
-      for (; c_index < m_proxyCount; c_index++) {
-        Proxy c = m_proxyBuffer[c_index];
-        if (bottomLeftTag <= c.tag) {
-          break;
+        long bottomLeftTag = computeRelativeTag(a.tag, -1, 1);
+        for (; c_index < m_proxyCount; c_index++) {
+          Proxy c = m_proxyBuffer[c_index];
+          if (bottomLeftTag <= c.tag) {
+            break;
+          }
         }
-      }
-      long bottomRightTag = computeRelativeTag(a.tag, 1, 1);
+        long bottomRightTag = computeRelativeTag(a.tag, 1, 1);
 
-      for (int b_index = c_index; b_index < m_proxyCount; b_index++) {
-        Proxy b = m_proxyBuffer[b_index];
-        if (bottomRightTag < b.tag) {
-          break;
+        for (int b_index = c_index; b_index < m_proxyCount; b_index++) {
+          Proxy b = m_proxyBuffer[b_index];
+          if (bottomRightTag < b.tag) {
+            break;
+          }
+          addContact(a.index, b.index);
         }
-        addContact(a.index, b.index);
       }
     }
     if (exceptZombie) {
@@ -628,6 +661,96 @@ public class ParticleSystem {
     }
   }
 
+  /**
+   * Finds the particle contacts with the proxies split into ranges of the sorted proxy buffer. Each
+   * range collects its contacts in its own buffer; the buffers are then appended in range order, so
+   * the contacts end up in the same order as with the single-threaded search.
+   */
+  private void findContactsParallel() {
+    m_solverPool.run(findContactsTask, m_proxyCount);
+    int total = 0;
+    for (int w = 0; w < m_workerContactBuffers.length; w++) {
+      total += m_workerContactBuffers[w].count;
+    }
+    if (total > m_contactCapacity) {
+      int newCapacity = MathUtils.max(total, 2 * m_contactCapacity);
+      newCapacity = MathUtils.max(newCapacity, Settings.minParticleBufferCapacity);
+      m_contactBuffer =
+          BufferUtils.reallocateBuffer(ParticleContact.class, m_contactBuffer, m_contactCapacity,
+              newCapacity);
+      m_contactCapacity = newCapacity;
+    }
+    int k = 0;
+    for (int w = 0; w < m_workerContactBuffers.length; w++) {
+      final ContactBuffer buffer = m_workerContactBuffers[w];
+      for (int j = 0; j < buffer.count; j++) {
+        // swap instead of copy, so both buffers keep their preallocated contacts
+        final ParticleContact temp = m_contactBuffer[k];
+        m_contactBuffer[k] = buffer.data[j];
+        buffer.data[j] = temp;
+        k++;
+      }
+      buffer.count = 0;
+    }
+    m_contactCount = total;
+  }
+
+  private final ParticleSolverPool.RangeTask updateTagsTask = new ParticleSolverPool.RangeTask() {
+    @Override
+    public void run(int worker, int from, int to) {
+      for (int p = from; p < to; p++) {
+        Proxy proxy = m_proxyBuffer[p];
+        Vec2 pos = m_positionBuffer.data[proxy.index];
+        proxy.tag = computeTag(m_inverseDiameter * pos.x, m_inverseDiameter * pos.y);
+      }
+    }
+  };
+
+  private final ParticleSolverPool.RangeTask findContactsTask = new ParticleSolverPool.RangeTask() {
+    @Override
+    public void run(int worker, int from, int to) {
+      final ContactBuffer buffer = m_workerContactBuffers[worker];
+      buffer.count = 0;
+      if (from >= to) {
+        return;
+      }
+      int c_index =
+          lowerBound(m_proxyBuffer, m_proxyCount,
+              computeRelativeTag(m_proxyBuffer[from].tag, -1, 1));
+      for (int i = from; i < to; i++) {
+        Proxy a = m_proxyBuffer[i];
+        long rightTag = computeRelativeTag(a.tag, 1, 0);
+        for (int j = i + 1; j < m_proxyCount; j++) {
+          Proxy b = m_proxyBuffer[j];
+          if (rightTag < b.tag) {
+            break;
+          }
+          if (initContact(buffer.next(), a.index, b.index)) {
+            buffer.count++;
+          }
+        }
+        long bottomLeftTag = computeRelativeTag(a.tag, -1, 1);
+        for (; c_index < m_proxyCount; c_index++) {
+          Proxy c = m_proxyBuffer[c_index];
+          if (bottomLeftTag <= c.tag) {
+            break;
+          }
+        }
+        long bottomRightTag = computeRelativeTag(a.tag, 1, 1);
+
+        for (int b_index = c_index; b_index < m_proxyCount; b_index++) {
+          Proxy b = m_proxyBuffer[b_index];
+          if (bottomRightTag < b.tag) {
+            break;
+          }
+          if (initContact(buffer.next(), a.index, b.index)) {
+            buffer.count++;
+          }
+        }
+      }
+    }
+  };
+
   private final UpdateBodyContactsCallback ubccallback = new UpdateBodyContactsCallback();
 
   public void updateBodyContacts() {
@@ -701,20 +824,10 @@ public class ParticleSystem {
     for (ParticleGroup group = m_groupList; group != null; group = group.getNext()) {
       m_allGroupFlags |= group.m_groupFlags;
     }
-    final float gravityx = step.dt * m_gravityScale * m_world.getGravity().x;
-    final float gravityy = step.dt * m_gravityScale * m_world.getGravity().y;
-    float criticalVelocytySquared = getCriticalVelocitySquared(step);
-    for (int i = 0; i < m_count; i++) {
-      Vec2 v = m_velocityBuffer.data[i];
-      v.x += gravityx;
-      v.y += gravityy;
-      float v2 = v.x * v.x + v.y * v.y;
-      if (v2 > criticalVelocytySquared) {
-        float a = v2 == 0 ? Float.MAX_VALUE : MathUtils.sqrt(criticalVelocytySquared / v2);
-        v.x *= a;
-        v.y *= a;
-      }
-    }
+    gravityTask.gravityx = step.dt * m_gravityScale * m_world.getGravity().x;
+    gravityTask.gravityy = step.dt * m_gravityScale * m_world.getGravity().y;
+    gravityTask.criticalVelocitySquared = getCriticalVelocitySquared(step);
+    m_solverPool.run(gravityTask, m_count);
     solveCollision(step);
     if ((m_allGroupFlags & ParticleGroupType.b2_rigidParticleGroup) != 0) {
       solveRigid(step);
@@ -722,12 +835,8 @@ public class ParticleSystem {
     if ((m_allParticleFlags & ParticleType.b2_wallParticle) != 0) {
       solveWall(step);
     }
-    for (int i = 0; i < m_count; i++) {
-      Vec2 pos = m_positionBuffer.data[i];
-      Vec2 vel = m_velocityBuffer.data[i];
-      pos.x += step.dt * vel.x;
-      pos.y += step.dt * vel.y;
-    }
+    integrateTask.dt = step.dt;
+    m_solverPool.run(integrateTask, m_count);
     updateBodyContacts();
     updateContacts(false);
     if ((m_allParticleFlags & ParticleType.b2_viscousParticle) != 0) {
@@ -756,6 +865,10 @@ public class ParticleSystem {
   }
 
   void solvePressure(TimeStep step) {
+    if (m_solverPool.getRangeCount(m_contactCount) > 1) {
+      solvePressureParallel(step);
+      return;
+    }
     // calculates the sum of contact-weights for each particle
     // that means dimensionless density
     for (int i = 0; i < m_count; i++) {
@@ -832,6 +945,147 @@ public class ParticleSystem {
     }
   }
 
+  /**
+   * Same as the single-threaded pressure solver, but the particle contacts are split into ranges.
+   * Every range scatters its weights and impulses into its own per-particle buffers, which are
+   * then summed per particle.
+   */
+  private void solvePressureParallel(TimeStep step) {
+    requestWorkerBuffers();
+    final int rangeCount = m_solverPool.getRangeCount(m_contactCount);
+    pressureTask.rangeCount = rangeCount;
+    // calculates the sum of contact-weights for each particle
+    pressureTask.pass = PressureTask.WEIGHTS;
+    m_solverPool.run(pressureTask, m_contactCount);
+    pressureTask.pass = PressureTask.SUM_WEIGHTS;
+    m_solverPool.run(pressureTask, m_count);
+    for (int k = 0; k < m_bodyContactCount; k++) {
+      ParticleBodyContact contact = m_bodyContactBuffer[k];
+      m_accumulationBuffer[contact.index] += contact.weight;
+    }
+    // calculates pressure as a linear function of density, ignoring powder particles
+    float pressurePerWeight = m_pressureStrength * getCriticalPressure(step);
+    pressureTask.pressurePerWeight = pressurePerWeight;
+    pressureTask.pass = PressureTask.PRESSURE;
+    m_solverPool.run(pressureTask, m_count);
+    // applies pressure between each particles in contact
+    float velocityPerPressure = step.dt / (m_density * m_particleDiameter);
+    for (int k = 0; k < m_bodyContactCount; k++) {
+      ParticleBodyContact contact = m_bodyContactBuffer[k];
+      int a = contact.index;
+      Body b = contact.body;
+      float w = contact.weight;
+      float m = contact.mass;
+      Vec2 n = contact.normal;
+      Vec2 p = m_positionBuffer.data[a];
+      float h = m_accumulationBuffer[a] + pressurePerWeight * w;
+      final Vec2 f = tempVec;
+      final float coef = velocityPerPressure * w * m * h;
+      f.x = coef * n.x;
+      f.y = coef * n.y;
+      final Vec2 velData = m_velocityBuffer.data[a];
+      final float particleInvMass = getParticleInvMass();
+      velData.x -= particleInvMass * f.x;
+      velData.y -= particleInvMass * f.y;
+      b.applyLinearImpulse(f, p, true);
+    }
+    pressureTask.velocityPerPressure = velocityPerPressure;
+    pressureTask.pass = PressureTask.IMPULSES;
+    m_solverPool.run(pressureTask, m_contactCount);
+    pressureTask.pass = PressureTask.SUM_IMPULSES;
+    m_solverPool.run(pressureTask, m_count);
+  }
+
+  private void requestWorkerBuffers() {
+    for (int w = 0; w < m_workerBufferX.length; w++) {
+      if (m_workerBufferX[w] == null || m_workerBufferX[w].length < m_count) {
+        m_workerBufferX[w] = new float[m_internalAllocatedCapacity];
+        m_workerBufferY[w] = new float[m_internalAllocatedCapacity];
+      }
+    }
+  }
+
+  private final PressureTask pressureTask = new PressureTask();
+
+  private class PressureTask implements ParticleSolverPool.RangeTask {
+    static final int WEIGHTS = 0;
+    static final int SUM_WEIGHTS = 1;
+    static final int PRESSURE = 2;
+    static final int IMPULSES = 3;
+    static final int SUM_IMPULSES = 4;
+    int pass;
+    int rangeCount;
+    float pressurePerWeight;
+    float velocityPerPressure;
+
+    @Override
+    public void run(int worker, int from, int to) {
+      switch (pass) {
+        case WEIGHTS: {
+          final float[] weights = m_workerBufferX[worker];
+          Arrays.fill(weights, 0, m_count, 0);
+          for (int k = from; k < to; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            weights[contact.indexA] += contact.weight;
+            weights[contact.indexB] += contact.weight;
+          }
+          break;
+        }
+        case SUM_WEIGHTS:
+          for (int i = from; i < to; i++) {
+            float w = 0;
+            for (int r = 0; r < rangeCount; r++) {
+              w += m_workerBufferX[r][i];
+            }
+            m_accumulationBuffer[i] = w;
+          }
+          break;
+        case PRESSURE:
+          for (int i = from; i < to; i++) {
+            float w = m_accumulationBuffer[i];
+            if ((m_flagsBuffer.data[i] & k_noPressureFlags) != 0) {
+              w = 0;
+            }
+            m_accumulationBuffer[i] =
+                pressurePerWeight
+                    * MathUtils.max(0.0f, MathUtils.min(w, Settings.maxParticleWeight)
+                        - Settings.minParticleWeight);
+          }
+          break;
+        case IMPULSES: {
+          final float[] dvx = m_workerBufferX[worker];
+          final float[] dvy = m_workerBufferY[worker];
+          Arrays.fill(dvx, 0, m_count, 0);
+          Arrays.fill(dvy, 0, m_count, 0);
+          for (int k = from; k < to; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            int a = contact.indexA;
+            int b = contact.indexB;
+            float w = contact.weight;
+            Vec2 n = contact.normal;
+            float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
+            final float fx = velocityPerPressure * w * h * n.x;
+            final float fy = velocityPerPressure * w * h * n.y;
+            dvx[a] -= fx;
+            dvy[a] -= fy;
+            dvx[b] += fx;
+            dvy[b] += fy;
+          }
+          break;
+        }
+        case SUM_IMPULSES:
+          for (int i = from; i < to; i++) {
+            final Vec2 vel = m_velocityBuffer.data[i];
+            for (int r = 0; r < rangeCount; r++) {
+              vel.x += m_workerBufferX[r][i];
+              vel.y += m_workerBufferY[r][i];
+            }
+          }
+          break;
+      }
+    }
+  }
+
   void solveDamping(TimeStep step) {
     // reduces normal velocity of each contact
     float damping = m_dampingStrength;
@@ -886,15 +1140,61 @@ public class ParticleSystem {
   }
 
   public void solveWall(TimeStep step) {
-    for (int i = 0; i < m_count; i++) {
-      if ((m_flagsBuffer.data[i] & ParticleType.b2_wallParticle) != 0) {
-        final Vec2 r = m_velocityBuffer.data[i];
-        r.x = 0.0f;
-        r.y = 0.0f;
+    m_solverPool.run(wallTask, m_count);
+  }
+
+  private final GravityTask gravityTask = new GravityTask();
+
+  private class GravityTask implements ParticleSolverPool.RangeTask {
+    float gravityx;
+    float gravityy;
+    float criticalVelocitySquared;
+
+    @Override
+    public void run(int worker, int from, int to) {
+      for (int i = from; i < to; i++) {
+        Vec2 v = m_velocityBuffer.data[i];
+        v.x += gravityx;
+        v.y += gravityy;
+        float v2 = v.x * v.x + v.y * v.y;
+        if (v2 > criticalVelocitySquared) {
+          float a = v2 == 0 ? Float.MAX_VALUE : MathUtils.sqrt(criticalVelocitySquared / v2);
+          v.x *= a;
+          v.y *= a;
+        }
+      }
+    }
+  }
+
+  private final IntegrateTask integrateTask = new IntegrateTask();
+
+  private class IntegrateTask implements ParticleSolverPool.RangeTask {
+    float dt;
+
+    @Override
+    public void run(int worker, int from, int to) {
+      for (int i = from; i < to; i++) {
+        Vec2 pos = m_positionBuffer.data[i];
+        Vec2 vel = m_velocityBuffer.data[i];
+        pos.x += dt * vel.x;
+        pos.y += dt * vel.y;
       }
     }
   }
 
+  private final ParticleSolverPool.RangeTask wallTask = new ParticleSolverPool.RangeTask() {
+    @Override
+    public void run(int worker, int from, int to) {
+      for (int i = from; i < to; i++) {
+        if ((m_flagsBuffer.data[i] & ParticleType.b2_wallParticle) != 0) {
+          final Vec2 r = m_velocityBuffer.data[i];
+          r.x = 0.0f;
+          r.y = 0.0f;
+        }
+      }
+    }
+  };
+
   private final Vec2 tempVec2 = new Vec2();
   private final Rot tempRot = new Rot();
   private final Transform tempXf = new Transform();
@@ -1822,6 +2122,21 @@ public class ParticleSystem {
     }
   }
 
+  /** Contacts found by one worker of the parallel contact search */
+  static class ContactBuffer {
+    ParticleContact[] data = new ParticleContact[0];
+    int count;
+
+    /** Returns the next unused contact, growing the buffer if necessary. */
+    ParticleContact next() {
+      if (count >= data.length) {
+        int newCapacity = count != 0 ? 2 * count : Settings.minParticleBufferCapacity;
+        data = BufferUtils.reallocateBuffer(ParticleContact.class, data, data.length, newCapacity);
+      }
+      return data[count];
+    }
+  }
+
   /** Connection between two particles */
   public static class Pair {
     int indexA, indexB;
@@ -20,20 +20,26 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
 import java.awt.Transparency;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
 
 class BitmapCanvas extends java.awt.Canvas {
 
+    private static final int BUFFER_COUNT = 2;
     private final BufferedImage bitmap;
     private final Graphics2D graphics;
+    private final boolean sync;
+    private BufferStrategy strategy;
 
-    BitmapCanvas(final int width, final int height) {
+    BitmapCanvas(final int width, final int height, final boolean sync) {
         final Dimension d = new Dimension(width, height);
         setPreferredSize(d);
         setSize(d);
         bitmap = createBufferedImage(width, height);
         graphics = bitmap.createGraphics();
+        this.sync = sync;
     }
 
     @Override
@@ -48,6 +54,53 @@ class BitmapCanvas extends java.awt.Canvas {
         paint(getGraphics());
     }
 
+    /**
+     * Draws an image directly to the screen using a buffer strategy. This method can be called from any thread, but
+     * not from multiple threads at once. Returns <tt>false</tt> if the canvas cannot be drawn to directly, e.g. because
+     * it is not displayable yet. If <tt>sync</tt> has been set, this method waits until the display is up to date.
+     */
+    boolean present(final BufferedImage image) {
+        if (!isDisplayable()) {
+            return false;
+        }
+
+        try {
+            if (strategy == null) {
+                // The frames are drawn actively, so there is no need to repaint the stale bitmap.
+                setIgnoreRepaint(true);
+                createBufferStrategy(BUFFER_COUNT);
+                strategy = getBufferStrategy();
+            }
+
+            do {
+                do {
+                    final Graphics g = strategy.getDrawGraphics();
+                    try {
+                        g.drawImage(image, 0, 0, null);
+                    }
+                    finally {
+                        g.dispose();
+                    }
+                }
+                while (strategy.contentsRestored());
+
+                strategy.show();
+            }
+            while (strategy.contentsLost());
+        }
+        catch (final IllegalStateException ex) {
+            // The canvas has lost its peer, e.g. because the window has been closed.
+            strategy = null;
+            return false;
+        }
+
+        if (sync) {
+            Toolkit.getDefaultToolkit().sync();
+        }
+
+        return true;
+    }
+
     void putImage(final BufferedImage image) {
         graphics.drawImage(image, 0, 0, this);
     }
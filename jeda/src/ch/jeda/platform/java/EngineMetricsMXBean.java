@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.platform.java;
+
+/**
+ * <b>Internal</b>. The JMX view of {@link ch.jeda.EngineMetrics}. Durations are in milliseconds.
+ */
+public interface EngineMetricsMXBean {
+
+    int getAudioVoiceCount();
+
+    double getDispatchTimeMax();
+
+    double getDispatchTimeP50();
+
+    double getDispatchTimeP95();
+
+    double getDispatchTimeP99();
+
+    double getDrawTimeMax();
+
+    double getDrawTimeP50();
+
+    double getDrawTimeP95();
+
+    double getDrawTimeP99();
+
+    int getElementCount();
+
+    long getFrameCount();
+
+    double getFrameTimeMax();
+
+    double getFrameTimeP50();
+
+    double getFrameTimeP95();
+
+    double getFrameTimeP99();
+
+    long getImageCacheBytes();
+
+    int getImageCacheCount();
+
+    double getUpdateTimeMax();
+
+    double getUpdateTimeP50();
+
+    double getUpdateTimeP95();
+
+    double getUpdateTimeP99();
+
+    void reset();
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.platform.java;
+
+import ch.jeda.JedaInternal;
+import ch.jeda.platform.AudioManagerImp;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An audio manager that does not play anything. Sounds are reported as available if their file exists, so programs
+ * behave as with a sound card. Music playback stops immediately.
+ */
+class HeadlessAudioManagerImp implements AudioManagerImp {
+
+    private final Map<String, Boolean> available;
+    private Callback callback;
+
+    HeadlessAudioManagerImp() {
+        available = new HashMap<String, Boolean>();
+    }
+
+    @Override
+    public int getVoiceCount() {
+        return 0;
+    }
+
+    @Override
+    public synchronized boolean isSoundAvailable(final String path) {
+        Boolean result = available.get(path);
+        if (result == null) {
+            result = exists(path);
+            available.put(path, result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void loadSound(final String path) {
+        isSoundAvailable(path);
+    }
+
+    @Override
+    public void pausePlayback() {
+        // ignore
+    }
+
+    @Override
+    public void playSound(final String path) {
+        // ignore
+    }
+
+    @Override
+    public void resumePlayback() {
+        // ignore
+    }
+
+    @Override
+    public synchronized void setCallback(final Callback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public boolean startPlayback(final String path) {
+        return false;
+    }
+
+    @Override
+    public void stopPlayback() {
+        final Callback current;
+        synchronized (this) {
+            current = callback;
+        }
+
+        if (current != null) {
+            current.playbackStopped();
+        }
+    }
+
+    private static boolean exists(final String path) {
+        final InputStream in = JedaInternal.openInputStream(path);
+        if (in == null) {
+            return false;
+        }
+
+        try {
+            in.close();
+        }
+        catch (final IOException ex) {
+            // ignore
+        }
+
+        return true;
+    }
+}
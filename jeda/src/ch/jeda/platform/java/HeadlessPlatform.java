@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.platform.java;
+
+import ch.jeda.Configuration;
+import ch.jeda.DisplayMetrics;
+import ch.jeda.JedaError;
+import ch.jeda.Log;
+import ch.jeda.event.SensorType;
+import ch.jeda.platform.AudioManagerImp;
+import ch.jeda.platform.CanvasImp;
+import ch.jeda.platform.ImageImp;
+import ch.jeda.platform.InputRequest;
+import ch.jeda.platform.Platform;
+import ch.jeda.platform.SelectionRequest;
+import ch.jeda.platform.TypefaceImp;
+import ch.jeda.platform.ViewRequest;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Set;
+import javax.xml.bind.DatatypeConverter;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+/**
+ * A Jeda platform that does not need a display. Views are drawn to offscreen images, sounds are not played and requests
+ * that need a user are cancelled. Select this platform by setting the property <tt>jeda.platform.class</tt> to
+ * <tt>ch.jeda.platform.java.HeadlessPlatform</tt>, e.g. with <tt>-Djeda.platform.class=...</tt>. The program to run
+ * must then be specified with the property <tt>jeda.default.program</tt> if there is more than one.
+ * <p>
+ * Together with the property <tt>jeda.timer.mode</tt> set to <tt>unlimited</tt> or <tt>virtual</tt>, the engine ticks as
+ * fast as possible. If the property <tt>jeda.headless.frame-path</tt> is set, every frame of a view is saved as PNG
+ * file. The value is a format string for the frame number, e.g. <tt>frames/frame-%05d.png</tt>.
+ */
+class HeadlessPlatform implements Platform {
+
+    private static final int DEFAULT_DPI = 96;
+    private static final int SCREEN_HEIGHT = 1080;
+    private static final int SCREEN_WIDTH = 1920;
+    private final HeadlessAudioManagerImp audioManager;
+    private final Platform.Callback callback;
+    private final Set<HeadlessViewImp> views;
+    private boolean shutdown;
+
+    public HeadlessPlatform(final Platform.Callback callback) {
+        System.setProperty("java.awt.headless", "true");
+        audioManager = new HeadlessAudioManagerImp();
+        this.callback = callback;
+        views = new HashSet<HeadlessViewImp>();
+        shutdown = false;
+    }
+
+    @Override
+    public CanvasImp createCanvasImp(final int width, final int height) {
+        return new JavaCanvasImp(width, height);
+    }
+
+    @Override
+    public ImageImp createImageImp(final String path) {
+        final BufferedImage image = ResourceManager.loadImage(path);
+        if (image == null) {
+            return null;
+        }
+        else {
+            return new JavaImageImp(image);
+        }
+    }
+
+    @Override
+    public TypefaceImp createTypefaceImp(final String path) {
+        return ResourceManager.loadTypeface(path);
+    }
+
+    @Override
+    public XMLReader createXmlReader() {
+        try {
+            return XMLReaderFactory.createXMLReader();
+        }
+        catch (final SAXException ex) {
+            throw new JedaError(JedaError.XML_READER_CREATION_FAILED, ex);
+        }
+    }
+
+    @Override
+    public byte[] decodeBase64(final String base64) {
+        return DatatypeConverter.parseBase64Binary(base64);
+    }
+
+    @Override
+    public String encodeBase64(final byte[] data) {
+        return DatatypeConverter.printBase64Binary(data);
+    }
+
+    @Override
+    public AudioManagerImp getAudioManagerImp() {
+        return audioManager;
+    }
+
+    @Override
+    public DisplayMetrics getDisplayMetrics() {
+        return new DisplayMetrics(Configuration.getInt("jeda.canvas.dpi", DEFAULT_DPI), SCREEN_WIDTH, SCREEN_HEIGHT);
+    }
+
+    @Override
+    public TypefaceImp getStandardTypefaceImp(final Platform.StandardTypeface standardTypeface) {
+        switch (standardTypeface) {
+            case MONOSPACED:
+                return new JavaTypefaceImp(new Font(Font.MONOSPACED, 20, 0));
+            case SERIF:
+                return new JavaTypefaceImp(new Font(Font.SERIF, 20, 0));
+            case SANS_SERIF:
+            default:
+                return ResourceManager.loadTypeface("res:jeda/fonts/roboto_regular.ttf");
+        }
+    }
+
+    @Override
+    public boolean isSensorAvailable(final SensorType sensorType) {
+        return false;
+    }
+
+    @Override
+    public boolean isSensorEnabled(final SensorType sensorType) {
+        return false;
+    }
+
+    @Override
+    public boolean isVirtualKeyboardVisible() {
+        return false;
+    }
+
+    @Override
+    public Class<?>[] loadClasses() throws Exception {
+        return ResourceManager.loadClasses();
+    }
+
+    @Override
+    public void setSensorEnabled(final SensorType sensorType, final boolean enabled) {
+        // ignore
+    }
+
+    @Override
+    public void setVirtualKeyboardVisible(final boolean visible) {
+        // ignore
+    }
+
+    @Override
+    public void showInputRequest(final InputRequest inputRequest) {
+        Log.w("Cannot ask for input on a headless platform.");
+        inputRequest.cancelRequest();
+    }
+
+    @Override
+    public void showSelectionRequest(final SelectionRequest selectionRequest) {
+        Log.e("Cannot ask for a selection on a headless platform. ",
+              "Specify the program with the property jeda.default.program.");
+        selectionRequest.setResult(-1);
+    }
+
+    @Override
+    public void showViewRequest(final ViewRequest viewRequest) {
+        final HeadlessViewImp result = new HeadlessViewImp(this, viewRequest.getWidth(), viewRequest.getHeight(),
+                                                           viewRequest.getFeatures(),
+                                                           Configuration.getString("jeda.headless.frame-path", null));
+        synchronized (views) {
+            views.add(result);
+        }
+
+        viewRequest.setResult(result);
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (views) {
+            shutdown = true;
+            views.notifyAll();
+        }
+
+        checkViewsClosed();
+    }
+
+    @Override
+    public void start() {
+        JmxEngineMetrics.register();
+        // The engine threads are daemon threads and there is no window, so a thread is needed to keep the virtual
+        // machine alive until Jeda shuts down and all views are closed.
+        new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                awaitShutdown();
+            }
+        }).start();
+    }
+
+    @Override
+    public void writeln(final String message) {
+        System.err.print(message);
+    }
+
+    void viewClosed(final HeadlessViewImp view) {
+        synchronized (views) {
+            views.remove(view);
+            views.notifyAll();
+        }
+
+        checkViewsClosed();
+    }
+
+    private void awaitShutdown() {
+        synchronized (views) {
+            // The program may return from run() while its views are still open, so wait for both.
+            while (!shutdown || !views.isEmpty()) {
+                try {
+                    views.wait();
+                }
+                catch (final InterruptedException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private void checkViewsClosed() {
+        final boolean exit;
+        synchronized (views) {
+            if (!views.isEmpty()) {
+                return;
+            }
+
+            exit = shutdown;
+        }
+
+        // If no views are open, then we request Jeda to stop.
+        if (exit) {
+            System.exit(0);
+        }
+        else {
+            callback.stop();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.platform.java;
+
+import ch.jeda.Log;
+import ch.jeda.platform.CanvasImp;
+import ch.jeda.platform.ViewImp;
+import ch.jeda.ui.MouseCursor;
+import ch.jeda.ui.ViewFeature;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import javax.imageio.ImageIO;
+
+/**
+ * A view that is drawn to an offscreen image only. Optionally, every frame is saved to a file.
+ */
+class HeadlessViewImp implements ViewImp {
+
+    private final JavaCanvasImp background;
+    private final EnumSet<ViewFeature> features;
+    private final JavaCanvasImp foreground;
+    private final String framePath;
+    private final int height;
+    private final HeadlessPlatform platform;
+    private final int width;
+    private int frameCount;
+    private volatile boolean visible;
+
+    HeadlessViewImp(final HeadlessPlatform platform, final int width, final int height,
+                    final EnumSet<ViewFeature> features, final String framePath) {
+        background = new JavaCanvasImp(width, height);
+        this.features = features;
+        foreground = new JavaCanvasImp(width, height);
+        this.framePath = framePath;
+        this.height = height;
+        this.platform = platform;
+        this.width = width;
+        frameCount = 0;
+        visible = true;
+    }
+
+    @Override
+    public void close() {
+        if (visible) {
+            visible = false;
+            platform.viewClosed(this);
+        }
+    }
+
+    @Override
+    public CanvasImp getBackground() {
+        return background;
+    }
+
+    @Override
+    public EnumSet<ViewFeature> getFeatures() {
+        return features;
+    }
+
+    @Override
+    public CanvasImp getForeground() {
+        return foreground;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public boolean isVisible() {
+        return visible;
+    }
+
+    @Override
+    public void setFeature(final ViewFeature feature, final boolean enabled) {
+        if (enabled) {
+            features.add(feature);
+        }
+        else {
+            features.remove(feature);
+        }
+    }
+
+    @Override
+    public void setMouseCursor(final MouseCursor mouseCursor) {
+        // ignore
+    }
+
+    @Override
+    public void setTitle(final String title) {
+        // ignore
+    }
+
+    @Override
+    public void update() {
+        ++frameCount;
+        if (framePath != null) {
+            final File file = new File(String.format(framePath, frameCount));
+            try {
+                ImageIO.write(foreground.getBitmap(), "png", file);
+            }
+            catch (final IOException ex) {
+                Log.e(ex, "Error while writing frame to '", file, "'.");
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,10 +46,21 @@ class JavaAudioManagerImp implements AudioManagerImp, LineListener {
     private final List<Clip> soundStreams;
 
     JavaAudioManagerImp() {
-        soundMap = new HashMap<String, SoundData>();
+        // Sounds may be loaded concurrently by a ch.jeda.Loader
+        soundMap = Collections.synchronizedMap(new HashMap<String, SoundData>());
         soundStreams = new ArrayList<Clip>();
     }
 
+    @Override
+    public int getVoiceCount() {
+        if (musicPlayer == null) {
+            return soundStreams.size();
+        }
+        else {
+            return soundStreams.size() + 1;
+        }
+    }
+
     @Override
     public boolean isSoundAvailable(final String path) {
         return soundMap.containsKey(path);
@@ -26,7 +26,6 @@ import java.awt.BasicStroke;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.GraphicsEnvironment;
-import java.awt.Polygon;
 import java.awt.RenderingHints;
 import java.awt.Transparency;
 import java.awt.font.FontRenderContext;
@@ -40,15 +39,23 @@ class JavaCanvasImp implements CanvasImp {
 
     private static final Map<?, ?> ALIASING_RENDERING_HINTS = initAliasingRenderingHints();
     private static final Map<?, ?> ANTI_ALIASING_RENDERING_HINTS = initAntiAliasingRenderingHints();
+    private static final int COLOR_CACHE_SIZE = 64;
     private static final AffineTransform IDENTITY = new AffineTransform();
     private final BufferedImage bitmap;
+    private final java.awt.Color[] colorCache;
     private final Graphics2D graphics;
     private final Map<FontRenderContext, Map<java.awt.Font, Map<String, TextLayout>>> textLayoutCache;
+    private BasicStroke stroke;
+    private int[] xPoints;
+    private int[] yPoints;
 
     JavaCanvasImp(final int width, final int height) {
         bitmap = createBufferedImage(width, height);
+        colorCache = new java.awt.Color[COLOR_CACHE_SIZE];
         graphics = bitmap.createGraphics();
         textLayoutCache = new HashMap();
+        xPoints = new int[8];
+        yPoints = new int[8];
     }
 
     @Override
@@ -95,7 +102,7 @@ class JavaCanvasImp implements CanvasImp {
         assert points.length >= 6;
         assert points.length % 2 == 0;
 
-        graphics.drawPolygon(createPolygon(points));
+        graphics.drawPolygon(xPoints, yPoints, convertPoints(points));
     }
 
     @Override
@@ -148,7 +155,7 @@ class JavaCanvasImp implements CanvasImp {
         assert points.length >= 6;
         assert points.length % 2 == 0;
 
-        graphics.fillPolygon(createPolygon(points));
+        graphics.fillPolygon(xPoints, yPoints, convertPoints(points));
     }
 
     @Override
@@ -211,7 +218,20 @@ class JavaCanvasImp implements CanvasImp {
     public void setColor(final Color color) {
         assert color != null;
 
-        graphics.setColor(new java.awt.Color(color.getValue(), true));
+        final int value = color.getValue();
+        if (graphics.getColor().getRGB() == value) {
+            return;
+        }
+
+        // Direct-mapped cache, avoids allocating a new AWT color for every shape drawn in a different color
+        final int index = (value ^ (value >>> 8) ^ (value >>> 16)) & (COLOR_CACHE_SIZE - 1);
+        java.awt.Color awtColor = colorCache[index];
+        if (awtColor == null || awtColor.getRGB() != value) {
+            awtColor = new java.awt.Color(value, true);
+            colorCache[index] = awtColor;
+        }
+
+        graphics.setColor(awtColor);
     }
 
     @Override
@@ -225,7 +245,11 @@ class JavaCanvasImp implements CanvasImp {
     public void setLineWidth(final float lineWidth) {
         assert lineWidth >= 0f;
 
-        graphics.setStroke(new BasicStroke(lineWidth));
+        if (stroke == null || stroke.getLineWidth() != lineWidth) {
+            stroke = new BasicStroke(lineWidth);
+        }
+
+        graphics.setStroke(stroke);
     }
 
     @Override
@@ -282,19 +306,33 @@ class JavaCanvasImp implements CanvasImp {
         return 0 <= x && x < getWidth() && 0 <= y && y < getHeight();
     }
 
-    private static BufferedImage createBufferedImage(final int width, final int height) {
-        return GraphicsEnvironment.getLocalGraphicsEnvironment().
-            getDefaultScreenDevice().getDefaultConfiguration().
-            createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    /**
+     * Converts the points into the reused coordinate arrays and returns the number of points.
+     */
+    private int convertPoints(final float[] points) {
+        final int count = points.length / 2;
+        if (count > xPoints.length) {
+            xPoints = new int[Math.max(count, 2 * xPoints.length)];
+            yPoints = new int[xPoints.length];
+        }
+
+        for (int i = 0; i < count; ++i) {
+            xPoints[i] = (int) points[2 * i];
+            yPoints[i] = (int) points[2 * i + 1];
+        }
+
+        return count;
     }
 
-    private static Polygon createPolygon(final float[] points) {
-        final Polygon result = new Polygon();
-        for (int i = 0; i < points.length; i = i + 2) {
-            result.addPoint((int) points[i], (int) points[i + 1]);
+    private static BufferedImage createBufferedImage(final int width, final int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            // There is no screen to be compatible with
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         }
 
-        return result;
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().
+            getDefaultScreenDevice().getDefaultConfiguration().
+            createCompatibleImage(width, height, Transparency.TRANSLUCENT);
     }
 
     private static Map<?, ?> initAliasingRenderingHints() {
@@ -16,8 +16,10 @@
  */
 package ch.jeda.platform.java;
 
+import ch.jeda.Configuration;
 import ch.jeda.Log;
 import ch.jeda.platform.ImageImp;
+import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsEnvironment;
@@ -32,6 +34,7 @@ import javax.imageio.ImageIO;
 
 class JavaImageImp implements ImageImp {
 
+    private static final boolean PREMULTIPLIED = Configuration.getBoolean("jeda.image.premultiplied", false);
     final BufferedImage bufferedImage;
 
     JavaImageImp(final BufferedImage bufferedImage) {
@@ -150,6 +153,23 @@ class JavaImageImp implements ImageImp {
             bufferedImage.getSubimage(x, y, width, height));
     }
 
+    /**
+     * Converts a decoded image into the format used for drawing. Images returned by ImageIO often have a format that
+     * Java2D can only draw through slow conversion loops, so they are copied once when loaded.
+     */
+    static BufferedImage toCompatibleImage(final BufferedImage image) {
+        if (image == null || isCompatible(image)) {
+            return image;
+        }
+
+        final BufferedImage result = createImage(image.getWidth(), image.getHeight());
+        final Graphics2D graphics = result.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return result;
+    }
+
     private static String convertEncoding(final Encoding encoding) {
         switch (encoding) {
             case JPEG:
@@ -162,8 +182,31 @@ class JavaImageImp implements ImageImp {
     }
 
     private static BufferedImage createImage(final int width, final int height) {
-        final GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().
-            getDefaultScreenDevice().getDefaultConfiguration();
-        return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        if (PREMULTIPLIED) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        if (GraphicsEnvironment.isHeadless()) {
+            // There is no screen to be compatible with
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        return getGraphicsConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    private static GraphicsConfiguration getGraphicsConfiguration() {
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    private static boolean isCompatible(final BufferedImage image) {
+        if (PREMULTIPLIED) {
+            return image.getType() == BufferedImage.TYPE_INT_ARGB_PRE;
+        }
+
+        if (GraphicsEnvironment.isHeadless()) {
+            return image.getType() == BufferedImage.TYPE_INT_ARGB;
+        }
+
+        return image.getColorModel().equals(getGraphicsConfiguration().getColorModel(Transparency.TRANSLUCENT));
     }
 }
@@ -166,6 +166,11 @@ class JavaPlatform implements Platform {
         windowManager.shutdown();
     }
 
+    @Override
+    public void start() {
+        JmxEngineMetrics.register();
+    }
+
     @Override
     public void writeln(final String message) {
         windowManager.writeln(message);
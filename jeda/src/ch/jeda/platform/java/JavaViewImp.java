@@ -16,6 +16,7 @@
  */
 package ch.jeda.platform.java;
 
+import ch.jeda.Configuration;
 import ch.jeda.event.Key;
 import ch.jeda.platform.CanvasImp;
 import ch.jeda.platform.ViewCallback;
@@ -42,6 +43,7 @@ class JavaViewImp implements ViewImp, FocusListener, KeyListener,
     private static final boolean LINUX = System.getProperty("os.name").endsWith("Linux");
     private static final EventSource MOUSE = new EventSource("Mouse");
     private static final int POINTER_ID = 0;
+    private final boolean activeRendering;
     private final BitmapCanvas bitmapCanvas;
     private final JavaCanvasImp background;
     private final ViewCallback callback;
@@ -64,7 +66,8 @@ class JavaViewImp implements ViewImp, FocusListener, KeyListener,
         keyRepeatCount = new EnumMap<Key, Integer>(Key.class);
         keyReleaseTimer = new EnumMap<Key, KeyReleaseTimer>(Key.class);
 
-        bitmapCanvas = new BitmapCanvas(width, height);
+        activeRendering = Configuration.getBoolean("jeda.view.active-rendering", true);
+        bitmapCanvas = new BitmapCanvas(width, height, Configuration.getBoolean("jeda.view.sync", false));
         background = new JavaCanvasImp(width, height);
         foreground = new JavaCanvasImp(width, height);
         this.window = window;
@@ -147,6 +150,12 @@ class JavaViewImp implements ViewImp, FocusListener, KeyListener,
 
     @Override
     public void update() {
+        // Present the frame directly from the calling thread. Fall back to copying the frame on the event dispatch
+        // thread if the canvas cannot be drawn to directly.
+        if (activeRendering && bitmapCanvas.present(foreground.getBitmap())) {
+            return;
+        }
+
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2016 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.platform.java;
+
+import ch.jeda.EngineMetrics;
+import ch.jeda.EngineMetrics.Timing;
+import ch.jeda.Log;
+import java.lang.management.ManagementFactory;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the engine metrics as the JMX MBean <tt>ch.jeda:type=EngineMetrics</tt>, so they can be watched with
+ * tools like JConsole.
+ */
+class JmxEngineMetrics implements EngineMetricsMXBean {
+
+    private static final String OBJECT_NAME = "ch.jeda:type=EngineMetrics";
+
+    static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new JmxEngineMetrics(),
+                                                                     new ObjectName(OBJECT_NAME));
+        }
+        catch (final InstanceAlreadyExistsException ex) {
+            // already registered by another platform instance
+        }
+        catch (final Exception ex) {
+            Log.w(ex, "Cannot register JMX MBean '", OBJECT_NAME, "'.");
+        }
+    }
+
+    @Override
+    public int getAudioVoiceCount() {
+        return EngineMetrics.getAudioVoiceCount();
+    }
+
+    @Override
+    public double getDispatchTimeMax() {
+        return max(Timing.DISPATCH);
+    }
+
+    @Override
+    public double getDispatchTimeP50() {
+        return percentile(Timing.DISPATCH, 50.0);
+    }
+
+    @Override
+    public double getDispatchTimeP95() {
+        return percentile(Timing.DISPATCH, 95.0);
+    }
+
+    @Override
+    public double getDispatchTimeP99() {
+        return percentile(Timing.DISPATCH, 99.0);
+    }
+
+    @Override
+    public double getDrawTimeMax() {
+        return max(Timing.DRAW);
+    }
+
+    @Override
+    public double getDrawTimeP50() {
+        return percentile(Timing.DRAW, 50.0);
+    }
+
+    @Override
+    public double getDrawTimeP95() {
+        return percentile(Timing.DRAW, 95.0);
+    }
+
+    @Override
+    public double getDrawTimeP99() {
+        return percentile(Timing.DRAW, 99.0);
+    }
+
+    @Override
+    public int getElementCount() {
+        return EngineMetrics.getElementCount();
+    }
+
+    @Override
+    public long getFrameCount() {
+        return EngineMetrics.getCount(Timing.FRAME);
+    }
+
+    @Override
+    public double getFrameTimeMax() {
+        return max(Timing.FRAME);
+    }
+
+    @Override
+    public double getFrameTimeP50() {
+        return percentile(Timing.FRAME, 50.0);
+    }
+
+    @Override
+    public double getFrameTimeP95() {
+        return percentile(Timing.FRAME, 95.0);
+    }
+
+    @Override
+    public double getFrameTimeP99() {
+        return percentile(Timing.FRAME, 99.0);
+    }
+
+    @Override
+    public long getImageCacheBytes() {
+        return EngineMetrics.getImageCacheBytes();
+    }
+
+    @Override
+    public int getImageCacheCount() {
+        return EngineMetrics.getImageCacheCount();
+    }
+
+    @Override
+    public double getUpdateTimeMax() {
+        return max(Timing.UPDATE);
+    }
+
+    @Override
+    public double getUpdateTimeP50() {
+        return percentile(Timing.UPDATE, 50.0);
+    }
+
+    @Override
+    public double getUpdateTimeP95() {
+        return percentile(Timing.UPDATE, 95.0);
+    }
+
+    @Override
+    public double getUpdateTimeP99() {
+        return percentile(Timing.UPDATE, 99.0);
+    }
+
+    @Override
+    public void reset() {
+        EngineMetrics.reset();
+    }
+
+    private static double max(final Timing timing) {
+        return EngineMetrics.getMax(timing) * 1000.0;
+    }
+
+    private static double percentile(final Timing timing, final double percentile) {
+        return EngineMetrics.getPercentile(timing, percentile) * 1000.0;
+    }
+}
@@ -77,7 +77,7 @@ class ResourceManager {
         }
 
         try {
-            return ImageIO.read(in);
+            return JavaImageImp.toCompatibleImage(ImageIO.read(in));
         }
         catch (Exception ex) {
             Log.e(ex, "Error while reading image file '", path, "'.");
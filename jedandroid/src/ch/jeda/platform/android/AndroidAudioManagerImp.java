@@ -48,6 +48,17 @@ class AndroidAudioManagerImp implements AudioManagerImp, MediaPlayer.OnCompletio
         }
     }
 
+    @Override
+    public int getVoiceCount() {
+        // SoundPool does not report its playing streams, so only music is counted.
+        if (mediaPlayer == null) {
+            return 0;
+        }
+        else {
+            return 1;
+        }
+    }
+
     @Override
     public boolean isSoundAvailable(final String path) {
         return soundMap.containsKey(path);
@@ -162,6 +162,11 @@ class AndroidPlatform implements Platform {
         Main.getInstance().shutdown();
     }
 
+    @Override
+    public void start() {
+        // Nothing to do, the activity is already running
+    }
+
     @Override
     public void writeln(String message) {
         Main.getInstance().writeln(message);